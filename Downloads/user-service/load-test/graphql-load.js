@@ -0,0 +1,48 @@
+// k6 load test for comparing the platform-thread and virtual-thread modes of the services.
+// See load-test/README.md for how to run both modes.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const target = __ENV.TARGET || 'http://localhost:8083/graphql';
+const userCount = parseInt(__ENV.USERS || '1000', 10);
+
+export const options = {
+  scenarios: {
+    dashboard: {
+      executor: 'constant-arrival-rate',
+      rate: parseInt(__ENV.RATE || '500', 10),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '2m',
+      preAllocatedVUs: parseInt(__ENV.VUS || '400', 10),
+      maxVUs: parseInt(__ENV.MAX_VUS || '2000', 10),
+    },
+  },
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+const summaryQuery = `
+  query Dashboard($userId: ID!) {
+    userTransactionSummary(userId: $userId) {
+      completedCount
+      pendingCount
+      totalDeposits
+    }
+    transactionsByUserId(userId: $userId, first: 20) {
+      edges { node { id amount transactionStatus createdAt } }
+      pageInfo { hasNextPage endCursor }
+    }
+  }
+`;
+
+export default function () {
+  const userId = String(1 + Math.floor(Math.random() * userCount));
+  const res = http.post(target, JSON.stringify({ query: summaryQuery, variables: { userId } }), {
+    headers: { 'Content-Type': 'application/json' },
+  });
+  check(res, {
+    'status is 200': (r) => r.status === 200,
+    'no GraphQL errors': (r) => !r.json('errors'),
+  });
+}
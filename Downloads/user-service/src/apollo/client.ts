@@ -1,12 +1,24 @@
 import { ApolloClient, InMemoryCache, createHttpLink, from } from '@apollo/client';
 import { setContext } from '@apollo/client/link/context';
 import { onError } from '@apollo/client/link/error';
+import { createPersistedQueryLink } from '@apollo/client/link/persisted-queries';
 
 // Create HTTP link to API Gateway
 const httpLink = createHttpLink({
   uri: 'http://localhost:8080/graphql',
 });
 
+// Automatic persisted queries: send only the query hash, and the full query once if the gateway
+// answers PersistedQueryNotFound
+const sha256 = async (query: string) => {
+  const digest = await crypto.subtle.digest('SHA-256', new TextEncoder().encode(query));
+  return Array.from(new Uint8Array(digest))
+    .map((byte) => byte.toString(16).padStart(2, '0'))
+    .join('');
+};
+
+const persistedQueryLink = createPersistedQueryLink({ sha256 });
+
 // Auth link to add JWT token to headers
 const authLink = setContext((_, { headers }) => {
   const token = localStorage.getItem('token');
@@ -38,7 +50,7 @@ const errorLink = onError(({ graphQLErrors, networkError, operation, forward })
 
 // Create Apollo Client
 export const apolloClient = new ApolloClient({
-  link: from([errorLink, authLink, httpLink]),
+  link: from([errorLink, authLink, persistedQueryLink, httpLink]),
   cache: new InMemoryCache(),
   defaultOptions: {
     watchQuery: {
@@ -66,16 +78,16 @@ export const createServiceLink = (service: 'user' | 'account' | 'transaction') =
 
 // Create service-specific clients
 export const userClient = new ApolloClient({
-  link: from([errorLink, createServiceLink('user'), httpLink]),
+  link: from([errorLink, createServiceLink('user'), persistedQueryLink, httpLink]),
   cache: new InMemoryCache(),
 });
 
 export const accountClient = new ApolloClient({
-  link: from([errorLink, createServiceLink('account'), httpLink]),
+  link: from([errorLink, createServiceLink('account'), persistedQueryLink, httpLink]),
   cache: new InMemoryCache(),
 });
 
 export const transactionClient = new ApolloClient({
-  link: from([errorLink, createServiceLink('transaction'), httpLink]),
+  link: from([errorLink, createServiceLink('transaction'), persistedQueryLink, httpLink]),
   cache: new InMemoryCache(),
 }); 
\ No newline at end of file
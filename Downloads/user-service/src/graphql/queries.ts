@@ -91,17 +91,26 @@ export const GET_ACCOUNTS_BY_USER = gql`
 
 // Transaction Queries
 export const GET_TRANSACTIONS = gql`
-  query GetTransactions {
-    transactions {
-      id
-      fromAccountId
-      toAccountId
-      amount
-      transactionType
-      status
-      description
-      createdAt
-      updatedAt
+  query GetTransactions($first: Int, $after: String) {
+    transactions(first: $first, after: $after) {
+      edges {
+        cursor
+        node {
+          id
+          fromAccountId
+          toAccountId
+          amount
+          transactionType
+          status
+          description
+          createdAt
+          updatedAt
+        }
+      }
+      pageInfo {
+        hasNextPage
+        endCursor
+      }
     }
   }
 `;
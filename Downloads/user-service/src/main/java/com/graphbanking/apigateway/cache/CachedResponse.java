@@ -0,0 +1,45 @@
+package com.graphbanking.apigateway.cache;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// A complete upstream response that can be replayed to another client
+public class CachedResponse {
+    
+    // Connection level or per-client headers that must not be replayed
+    private static final List<String> EXCLUDED_HEADERS = List.of(
+        HttpHeaders.CONTENT_LENGTH, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, HttpHeaders.SET_COOKIE);
+    
+    private final HttpStatusCode status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    
+    public CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        this.status = status;
+        this.headers = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (EXCLUDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                this.headers.put(name, List.copyOf(values));
+            }
+        });
+        this.body = body;
+    }
+    
+    public HttpStatusCode getStatus() { return status; }
+    public HttpHeaders getHeaders() { return headers; }
+    public byte[] getBody() { return body; }
+    
+    public Mono<Void> writeTo(ServerHttpResponse response, String cacheStatus) {
+        response.setStatusCode(status);
+        response.getHeaders().putAll(headers);
+        response.getHeaders().setContentLength(body.length);
+        response.getHeaders().set("X-Cache", cacheStatus);
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
@@ -0,0 +1,102 @@
+package com.graphbanking.apigateway.cache;
+
+import com.graphbanking.apigateway.config.GatewayCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Bounded LRU of GraphQL responses. Entries remember the service and root fields they answer, so
+// mutations can evict exactly the responses they may have changed.
+@Component
+public class GraphQLResponseCache {
+    
+    private final GatewayCacheProperties properties;
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+    
+    public GraphQLResponseCache(GatewayCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > GraphQLResponseCache.this.properties.getMaxEntries();
+            }
+        };
+        this.hits = Counter.builder("gateway.cache.gets").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("gateway.cache.gets").tag("result", "miss").register(meterRegistry);
+        this.invalidations = Counter.builder("gateway.cache.invalidations").register(meterRegistry);
+        Gauge.builder("gateway.cache.size", this, GraphQLResponseCache::size).register(meterRegistry);
+    }
+    
+    public synchronized CachedResponse get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.response;
+    }
+    
+    public synchronized void put(String key, CachedResponse response, Duration ttl, String service, List<String> rootFields) {
+        entries.put(key, new Entry(response, System.currentTimeMillis() + ttl.toMillis(), service, Set.copyOf(rootFields)));
+    }
+    
+    // Invalidation hook for a mutation on the given service
+    public synchronized void invalidate(String service, List<String> mutationFields) {
+        Set<String> affected = new HashSet<>();
+        boolean everything = mutationFields == null || mutationFields.isEmpty();
+        if (!everything) {
+            for (String mutationField : mutationFields) {
+                List<String> fields = properties.getInvalidations().get(mutationField);
+                if (fields == null) {
+                    everything = true;
+                    break;
+                }
+                affected.addAll(fields);
+            }
+        }
+        boolean evictAll = everything;
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.service.equals(service)
+            && (evictAll || entry.rootFields.stream().anyMatch(affected::contains)));
+        invalidations.increment(before - entries.size());
+    }
+    
+    public synchronized void invalidateAll() {
+        invalidations.increment(entries.size());
+        entries.clear();
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    private static class Entry {
+        private final CachedResponse response;
+        private final long expiresAt;
+        private final String service;
+        private final Set<String> rootFields;
+        
+        Entry(CachedResponse response, long expiresAt, String service, Set<String> rootFields) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+            this.service = service;
+            this.rootFields = rootFields;
+        }
+    }
+}
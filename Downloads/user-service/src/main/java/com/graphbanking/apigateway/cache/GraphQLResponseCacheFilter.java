@@ -0,0 +1,127 @@
+package com.graphbanking.apigateway.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.graphbanking.apigateway.config.GatewayCacheProperties;
+import com.graphbanking.apigateway.filter.BodyCapturingResponse;
+import com.graphbanking.apigateway.filter.FilterOrder;
+import com.graphbanking.apigateway.graphql.GraphQLDocument;
+import com.graphbanking.apigateway.graphql.GraphQLExchange;
+import com.graphbanking.apigateway.graphql.GraphQLRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+// Answers repeated read-only GraphQL queries from GraphQLResponseCache. The key covers the target
+// service, the caller's credentials, the normalized document, operation name and canonical variables,
+// so users never see each other's data. Mutations evict what they may have changed, both before they
+// are forwarded and after they complete.
+@Component
+public class GraphQLResponseCacheFilter implements GlobalFilter, Ordered {
+    
+    private static final String SERVICE_HEADER = "X-Service";
+    
+    private final ObjectMapper canonicalMapper;
+    
+    @Autowired
+    private GraphQLResponseCache cache;
+    
+    @Autowired
+    private GatewayCacheProperties properties;
+    
+    public GraphQLResponseCacheFilter(ObjectMapper objectMapper) {
+        this.canonicalMapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        GraphQLRequest request = GraphQLExchange.request(exchange);
+        GraphQLDocument.Operation operation = request != null ? request.getOperation() : null;
+        if (!properties.isEnabled() || operation == null) {
+            return chain.filter(exchange);
+        }
+        
+        String service = String.valueOf(exchange.getRequest().getHeaders().getFirst(SERVICE_HEADER));
+        if (operation.getType() == GraphQLDocument.OperationType.MUTATION) {
+            cache.invalidate(service, operation.getRootFields());
+            return chain.filter(exchange)
+                .then(Mono.fromRunnable(() -> cache.invalidate(service, operation.getRootFields())));
+        }
+        if (operation.getType() != GraphQLDocument.OperationType.QUERY) {
+            return chain.filter(exchange);
+        }
+        
+        Duration ttl = properties.ttlFor(request.getOperationName(), operation.getRootFields());
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return chain.filter(exchange);
+        }
+        
+        String key = cacheKey(exchange, service, request);
+        CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            return cached.writeTo(exchange.getResponse(), "HIT");
+        }
+        
+        ServerHttpResponse original = exchange.getResponse();
+        original.getHeaders().set("X-Cache", "MISS");
+        BodyCapturingResponse capturing = new BodyCapturingResponse(original, body -> {
+            if (cacheable(original, body)) {
+                cache.put(key, new CachedResponse(original.getStatusCode(), original.getHeaders(), body),
+                          ttl, service, operation.getRootFields() != null ? operation.getRootFields() : List.of());
+            }
+        });
+        return chain.filter(exchange.mutate().response(capturing).build());
+    }
+    
+    // Only complete, successful, uncompressed JSON without GraphQL errors is worth replaying
+    private boolean cacheable(ServerHttpResponse response, byte[] body) {
+        if (response.getStatusCode() != HttpStatus.OK || body.length > properties.getMaxBodyBytes()
+                || response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+        try {
+            return !canonicalMapper.readTree(body).has("errors");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    private String cacheKey(ServerWebExchange exchange, String service, GraphQLRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            for (String part : new String[] {
+                    service,
+                    authorization != null ? authorization : "",
+                    request.getDocument().getNormalized(),
+                    request.getOperationName() != null ? request.getOperationName() : "",
+                    canonicalMapper.writeValueAsString(request.getVariables())}) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Unable to build cache key", e);
+        }
+    }
+    
+    @Override
+    public int getOrder() {
+        return FilterOrder.RESPONSE_CACHE;
+    }
+}
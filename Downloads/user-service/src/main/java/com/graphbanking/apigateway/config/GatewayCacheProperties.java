@@ -0,0 +1,64 @@
+package com.graphbanking.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// graphbanking.gateway.cache.*: which GraphQL queries the gateway may answer from its response
+// cache, for how long, and which cached root fields each mutation invalidates
+@ConfigurationProperties(prefix = "graphbanking.gateway.cache")
+public class GatewayCacheProperties {
+    
+    private boolean enabled = true;
+    private int maxEntries = 10000;
+    private int maxBodyBytes = 256 * 1024;
+    
+    // TTL by operation name; takes precedence over the field rules
+    private Map<String, Duration> operations = new HashMap<>();
+    
+    // TTL by root field; a query is cached only if all of its root fields have a rule (shortest wins)
+    private Map<String, Duration> fields = new HashMap<>();
+    
+    // Mutation root field -> query root fields to evict. Mutations without an entry evict every
+    // cached response of the same service.
+    private Map<String, List<String>> invalidations = new HashMap<>();
+    
+    public Duration ttlFor(String operationName, List<String> rootFields) {
+        if (operationName != null && operations.containsKey(operationName)) {
+            return operations.get(operationName);
+        }
+        if (rootFields == null || rootFields.isEmpty()) {
+            return null;
+        }
+        Duration ttl = null;
+        for (String field : rootFields) {
+            Duration fieldTtl = fields.get(field);
+            if (fieldTtl == null) {
+                return null;
+            }
+            ttl = ttl == null || fieldTtl.compareTo(ttl) < 0 ? fieldTtl : ttl;
+        }
+        return ttl;
+    }
+    
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    
+    public int getMaxEntries() { return maxEntries; }
+    public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+    
+    public int getMaxBodyBytes() { return maxBodyBytes; }
+    public void setMaxBodyBytes(int maxBodyBytes) { this.maxBodyBytes = maxBodyBytes; }
+    
+    public Map<String, Duration> getOperations() { return operations; }
+    public void setOperations(Map<String, Duration> operations) { this.operations = operations; }
+    
+    public Map<String, Duration> getFields() { return fields; }
+    public void setFields(Map<String, Duration> fields) { this.fields = fields; }
+    
+    public Map<String, List<String>> getInvalidations() { return invalidations; }
+    public void setInvalidations(Map<String, List<String>> invalidations) { this.invalidations = invalidations; }
+}
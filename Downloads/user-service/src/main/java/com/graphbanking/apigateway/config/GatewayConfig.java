@@ -0,0 +1,59 @@
+package com.graphbanking.apigateway.config;
+
+import com.graphbanking.apigateway.filter.ProfiledNettyRoutingFilter;
+import com.graphbanking.apigateway.filter.UpstreamHttpClientFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties({GatewayCacheProperties.class, UpstreamProperties.class})
+public class GatewayConfig {
+    
+    @Bean
+    public ProfiledNettyRoutingFilter profiledNettyRoutingFilter(HttpClient httpClient,
+                                                                 ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                                                 HttpClientProperties properties,
+                                                                 ServerProperties serverProperties,
+                                                                 HttpClientSslConfigurer sslConfigurer,
+                                                                 ObjectProvider<HttpClientCustomizer> customizers,
+                                                                 UpstreamProperties upstreamProperties) {
+        return new ProfiledNettyRoutingFilter(httpClient, headersFilters, properties, upstreamProperties,
+            provider -> new UpstreamHttpClientFactory(provider, properties, serverProperties, sslConfigurer,
+                                                      customizers.orderedStream().toList()).create());
+    }
+    
+    // Identifies the client a request is charged to by its address. Tokens are not verified at the
+    // gateway, so a made-up Authorization header must not buy a fresh budget; likewise X-Forwarded-For
+    // is only read as far as the configured number of proxies in front of the gateway, since anything
+    // further left was written by the client itself.
+    @Bean
+    public KeyResolver clientKeyResolver(@Value("${graphbanking.gateway.rate-limit.trusted-proxies:0}") int trustedProxies) {
+        RemoteAddressResolver addressResolver = trustedProxies > 0
+            ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxies)
+            : new RemoteAddressResolver() {};
+        return exchange -> Mono.just(clientKey(exchange, addressResolver));
+    }
+    
+    static String clientKey(ServerWebExchange exchange, RemoteAddressResolver addressResolver) {
+        InetSocketAddress remoteAddress = addressResolver.resolve(exchange);
+        return "ip:" + (remoteAddress != null && remoteAddress.getAddress() != null
+            ? remoteAddress.getAddress().getHostAddress() : "unknown");
+    }
+}
@@ -0,0 +1,70 @@
+package com.graphbanking.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// graphbanking.gateway.upstream.*: HTTP client profiles for gateway -> service traffic. Each profile
+// gets its own connection pool, so one slow service cannot take every connection; routes are mapped
+// to profiles by id and routes without a mapping use the spring.cloud.gateway.httpclient defaults.
+@ConfigurationProperties(prefix = "graphbanking.gateway.upstream")
+public class UpstreamProperties {
+    
+    private Map<String, Profile> profiles = new HashMap<>();
+    
+    // Route id -> profile name
+    private Map<String, String> routes = new HashMap<>();
+    
+    public Map<String, Profile> getProfiles() { return profiles; }
+    public void setProfiles(Map<String, Profile> profiles) { this.profiles = profiles; }
+    
+    public Map<String, String> getRoutes() { return routes; }
+    public void setRoutes(Map<String, String> routes) { this.routes = routes; }
+    
+    public static class Profile {
+        private int maxConnections = 100;
+        // Requests allowed to wait for a connection once the pool is exhausted; more fail fast
+        private int pendingAcquireMaxCount = 200;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration responseTimeout = Duration.ofSeconds(10);
+        private boolean keepAlive = true;
+        // Offer HTTP/2 cleartext and fall back to HTTP/1.1 when the service does not upgrade
+        private boolean h2c = false;
+        
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+        
+        public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+        
+        public Duration getPendingAcquireTimeout() { return pendingAcquireTimeout; }
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) { this.pendingAcquireTimeout = pendingAcquireTimeout; }
+        
+        public Duration getMaxIdleTime() { return maxIdleTime; }
+        public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+        
+        public Duration getMaxLifeTime() { return maxLifeTime; }
+        public void setMaxLifeTime(Duration maxLifeTime) { this.maxLifeTime = maxLifeTime; }
+        
+        public Duration getEvictInBackground() { return evictInBackground; }
+        public void setEvictInBackground(Duration evictInBackground) { this.evictInBackground = evictInBackground; }
+        
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+        
+        public Duration getResponseTimeout() { return responseTimeout; }
+        public void setResponseTimeout(Duration responseTimeout) { this.responseTimeout = responseTimeout; }
+        
+        public boolean isKeepAlive() { return keepAlive; }
+        public void setKeepAlive(boolean keepAlive) { this.keepAlive = keepAlive; }
+        
+        public boolean isH2c() { return h2c; }
+        public void setH2c(boolean h2c) { this.h2c = h2c; }
+    }
+}
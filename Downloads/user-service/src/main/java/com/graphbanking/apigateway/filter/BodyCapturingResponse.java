@@ -0,0 +1,74 @@
+package com.graphbanking.apigateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Buffers the response body, hands a copy to a callback and then writes it through unchanged.
+// Only meant for bounded JSON bodies such as GraphQL responses. With a cap, a body that declares
+// or grows past it is streamed through as it arrives instead, and onOverflow runs in place of onBody.
+public class BodyCapturingResponse extends ServerHttpResponseDecorator {
+    
+    private final long maxBytes;
+    private final Consumer<byte[]> onBody;
+    private final Runnable onOverflow;
+    
+    public BodyCapturingResponse(ServerHttpResponse delegate, Consumer<byte[]> onBody) {
+        this(delegate, Long.MAX_VALUE, onBody, () -> { });
+    }
+    
+    public BodyCapturingResponse(ServerHttpResponse delegate, long maxBytes, Consumer<byte[]> onBody, Runnable onOverflow) {
+        super(delegate);
+        this.maxBytes = maxBytes;
+        this.onBody = onBody;
+        this.onOverflow = onOverflow;
+    }
+    
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        if (getHeaders().getContentLength() > maxBytes) {
+            onOverflow.run();
+            return super.writeWith(body);
+        }
+        
+        // Chunks are held until the body ends; once past the cap each chunk is passed on as it arrives
+        long[] size = {0};
+        Flux<List<DataBuffer>> chunks = Flux.<DataBuffer>from(body)
+            .bufferUntil(buffer -> (size[0] += buffer.readableByteCount()) > maxBytes)
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        return chunks.switchOnFirst((first, all) -> {
+            if (size[0] > maxBytes) {
+                onOverflow.run();
+                return super.writeWith(all.concatMapIterable(list -> list));
+            }
+            return capture(all.concatMapIterable(list -> list));
+        }).then();
+    }
+    
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWith(Flux.from(body).concatMap(Flux::from));
+    }
+    
+    private Mono<Void> capture(Flux<DataBuffer> body) {
+        return DataBufferUtils.join(body)
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            })
+            .defaultIfEmpty(new byte[0])
+            .flatMap(bytes -> {
+                onBody.accept(bytes);
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+    }
+}
@@ -0,0 +1,17 @@
+package com.graphbanking.apigateway.filter;
+
+// Order of the gateway's own global filters. All of them run before NettyWriteResponseFilter (-1)
+// so that response decorators installed here see the upstream body as it is written.
+public final class FilterOrder {
+    
+    public static final int GRAPHQL_CAPTURE = -300;
+    public static final int PERSISTED_QUERY = -200;
+    public static final int RESPONSE_CACHE = -100;
+    public static final int COALESCE = -75;
+    // After the cache and coalescing: answers served by either cost the services nothing and are not charged
+    public static final int COST_BUDGET = -50;
+    public static final int CONCURRENCY_LIMIT = -25;
+    
+    private FilterOrder() {
+    }
+}
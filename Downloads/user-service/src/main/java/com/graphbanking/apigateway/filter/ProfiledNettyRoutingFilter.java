@@ -0,0 +1,75 @@
+package com.graphbanking.apigateway.filter;
+
+import com.graphbanking.apigateway.config.UpstreamProperties;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// NettyRoutingFilter that sends each route through the HTTP client of its upstream profile. Pools are
+// named after the profile and publish reactor.netty.connection.provider.* metrics (active, idle,
+// pending, max), which is where pool saturation shows up. Replaces the default routing filter, see
+// spring.cloud.gateway.global-filter.netty-routing.enabled. A profile client starts out as the
+// gateway's own client rebuilt on the profile's pool (see UpstreamHttpClientFactory), so SSL, proxy,
+// wiretap and customizers carry over and only the profile settings differ.
+public class ProfiledNettyRoutingFilter extends NettyRoutingFilter implements DisposableBean {
+    
+    private final UpstreamProperties upstreamProperties;
+    private final Function<ConnectionProvider, HttpClient> baseClient;
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionProvider> providers = new ConcurrentHashMap<>();
+    
+    public ProfiledNettyRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                                      HttpClientProperties properties, UpstreamProperties upstreamProperties,
+                                      Function<ConnectionProvider, HttpClient> baseClient) {
+        super(httpClient, headersFiltersProvider, properties);
+        this.upstreamProperties = upstreamProperties;
+        this.baseClient = baseClient;
+    }
+    
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        String profile = upstreamProperties.getRoutes().get(route.getId());
+        if (profile == null || !upstreamProperties.getProfiles().containsKey(profile)) {
+            return super.getHttpClient(route, exchange);
+        }
+        return clients.computeIfAbsent(profile, this::createClient);
+    }
+    
+    private HttpClient createClient(String name) {
+        UpstreamProperties.Profile profile = upstreamProperties.getProfiles().get(name);
+        ConnectionProvider provider = ConnectionProvider.builder("upstream-" + name)
+            .maxConnections(profile.getMaxConnections())
+            .pendingAcquireMaxCount(profile.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(profile.getPendingAcquireTimeout())
+            .maxIdleTime(profile.getMaxIdleTime())
+            .maxLifeTime(profile.getMaxLifeTime())
+            .evictInBackground(profile.getEvictInBackground())
+            .metrics(true)
+            .build();
+        providers.put(name, provider);
+        
+        HttpClient client = baseClient.apply(provider)
+            .keepAlive(profile.isKeepAlive())
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) profile.getConnectTimeout().toMillis())
+            .responseTimeout(profile.getResponseTimeout());
+        return profile.isH2c() ? client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11) : client;
+    }
+    
+    @Override
+    public void destroy() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+}
@@ -0,0 +1,131 @@
+package com.graphbanking.apigateway.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.apigateway.cache.CachedResponse;
+import com.graphbanking.apigateway.graphql.GraphQLDocument;
+import com.graphbanking.apigateway.graphql.GraphQLExchange;
+import com.graphbanking.apigateway.graphql.GraphQLRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Collapses identical concurrent reads into one upstream call: the first GraphQL query or plain GET for a
+// key is forwarded, requests arriving while it is in flight wait for its response and get a copy.
+// The key includes the client (clientKeyResolver) and its credentials, so responses are only shared
+// between requests that would have been answered identically anyway. Nothing is kept once the leader completes.
+// Only bodies up to max-body-bytes are held; a larger one streams to the leader and followers go upstream themselves.
+@Component
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+    
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final KeyResolver clientKeyResolver;
+    private final ObjectMapper objectMapper;
+    private final Counter coalesced;
+    
+    @Value("${graphbanking.gateway.coalescing.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${graphbanking.gateway.coalescing.max-body-bytes:262144}")
+    private long maxBodyBytes;
+    
+    public RequestCoalescingFilter(@Qualifier("clientKeyResolver") KeyResolver clientKeyResolver, ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry) {
+        this.clientKeyResolver = clientKeyResolver;
+        this.objectMapper = objectMapper;
+        this.coalesced = Counter.builder("gateway.coalesced.requests").register(meterRegistry);
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String request = enabled ? describe(exchange) : null;
+        if (request == null) {
+            return chain.filter(exchange);
+        }
+        
+        return clientKeyResolver.resolve(exchange).flatMap(client -> {
+            String key = client + "\n" + request;
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Sinks.One<CachedResponse> leader = inFlight.putIfAbsent(key, sink);
+            if (leader != null) {
+                coalesced.increment();
+                // An empty result means the leader failed or was cancelled; go upstream ourselves
+                return leader.asMono()
+                    .flatMap(response -> response.writeTo(exchange.getResponse(), "COALESCED").thenReturn(true))
+                    .switchIfEmpty(chain.filter(exchange).thenReturn(true))
+                    .then();
+            }
+            
+            BodyCapturingResponse response = new BodyCapturingResponse(exchange.getResponse(), maxBodyBytes, body -> {
+                inFlight.remove(key, sink);
+                sink.tryEmitValue(new CachedResponse(exchange.getResponse().getStatusCode(),
+                                                     exchange.getResponse().getHeaders(), body));
+            }, () -> {
+                if (inFlight.remove(key, sink)) {
+                    sink.tryEmitEmpty();
+                }
+            });
+            return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> {
+                    if (inFlight.remove(key, sink)) {
+                        sink.tryEmitEmpty();
+                    }
+                });
+        });
+    }
+    
+    // What makes two requests identical, or null if the request must not be shared
+    private String describe(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        if (headers.getAccept().contains(MediaType.TEXT_EVENT_STREAM) || headers.getUpgrade() != null) {
+            return null;
+        }
+        // Partial and conditional GETs are answered per request, and a GET with a body is not a plain read
+        if (request.getMethod() == HttpMethod.GET && (headers.containsKey(HttpHeaders.RANGE)
+                || headers.containsKey(HttpHeaders.IF_NONE_MATCH) || headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE)
+                || headers.getContentLength() > 0 || headers.containsKey(HttpHeaders.TRANSFER_ENCODING))) {
+            return null;
+        }
+        String common = request.getURI().getRawPath() + "?" + request.getURI().getRawQuery()
+            + "\n" + headers.getFirst("X-Service") + "\n" + headers.getFirst(HttpHeaders.ACCEPT_ENCODING)
+            + "\n" + headers.getFirst(HttpHeaders.AUTHORIZATION) + "\n" + headers.getFirst(HttpHeaders.COOKIE)
+            + "\n" + headers.getFirst("X-Last-Write");
+        if (request.getMethod() == HttpMethod.GET) {
+            return "GET " + common;
+        }
+        
+        GraphQLRequest graphQLRequest = GraphQLExchange.request(exchange);
+        GraphQLDocument.Operation operation = graphQLRequest != null ? graphQLRequest.getOperation() : null;
+        if (operation == null || operation.getType() != GraphQLDocument.OperationType.QUERY) {
+            return null;
+        }
+        try {
+            return "QUERY " + common + "\n" + graphQLRequest.getDocument().getNormalized()
+                + "\n" + graphQLRequest.getOperationName() + "\n" + objectMapper.writeValueAsString(graphQLRequest.getVariables());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+    
+    @Override
+    public int getOrder() {
+        return FilterOrder.COALESCE;
+    }
+}
@@ -0,0 +1,38 @@
+package com.graphbanking.apigateway.filter;
+
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+
+// Builds an HttpClient the way the gateway builds its own (spring.cloud.gateway.httpclient.*, SSL,
+// proxy, wiretap, HttpClientCustomizer beans) but on a connection pool supplied by the caller
+public class UpstreamHttpClientFactory extends HttpClientFactory {
+    
+    private final ConnectionProvider connectionProvider;
+    
+    public UpstreamHttpClientFactory(ConnectionProvider connectionProvider, HttpClientProperties properties,
+                                     ServerProperties serverProperties, HttpClientSslConfigurer sslConfigurer,
+                                     List<HttpClientCustomizer> customizers) {
+        super(properties, serverProperties, sslConfigurer, customizers);
+        this.connectionProvider = connectionProvider;
+    }
+    
+    public HttpClient create() {
+        try {
+            return createInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to create upstream HTTP client", e);
+        }
+    }
+    
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+        return connectionProvider;
+    }
+}
@@ -0,0 +1,232 @@
+package com.graphbanking.apigateway.graphql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+// Just enough of a GraphQL parser for routing decisions at the gateway: the operations in a
+// document, their type, name and root field names, plus a normalized form of the document
+// (comments, commas and insignificant whitespace removed) that is stable for cache keys.
+// Field arguments and nested selections are skipped, not validated; that is left to the services.
+public final class GraphQLDocument {
+    
+    public enum OperationType { QUERY, MUTATION, SUBSCRIPTION }
+    
+    private static final Set<String> PUNCTUATORS = Set.of("!", "$", "&", "(", ")", ":", "=", "@", "[", "]", "{", "|", "}");
+    
+    private final List<Operation> operations;
+    private final String normalized;
+    
+    private GraphQLDocument(List<Operation> operations, String normalized) {
+        this.operations = operations;
+        this.normalized = normalized;
+    }
+    
+    public static GraphQLDocument parse(String source) {
+        List<String> tokens = tokenize(source);
+        try {
+            return new GraphQLDocument(new Parser(tokens).operations(), String.join(" ", tokens));
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Unexpected end of GraphQL document");
+        }
+    }
+    
+    public List<Operation> getOperations() { return operations; }
+    public String getNormalized() { return normalized; }
+    
+    // The operation a request executes: the named one, or the only one when no name is given
+    public Operation operation(String operationName) {
+        if (operationName == null || operationName.isEmpty()) {
+            return operations.size() == 1 ? operations.get(0) : null;
+        }
+        for (Operation operation : operations) {
+            if (operationName.equals(operation.getName())) {
+                return operation;
+            }
+        }
+        return null;
+    }
+    
+    public static class Operation {
+        private final OperationType type;
+        private final String name;
+        private final List<String> rootFields;
+        
+        Operation(OperationType type, String name, List<String> rootFields) {
+            this.type = type;
+            this.name = name;
+            this.rootFields = rootFields;
+        }
+        
+        public OperationType getType() { return type; }
+        public String getName() { return name; }
+        
+        // Null when the root selection uses fragments, since the fields cannot be known without the schema
+        public List<String> getRootFields() { return rootFields; }
+    }
+    
+    private static List<String> tokenize(String source) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c) || c == ',' || c == '\uFEFF') {
+                i++;
+            } else if (c == '#') {
+                while (i < length && source.charAt(i) != '\n' && source.charAt(i) != '\r') {
+                    i++;
+                }
+            } else if (source.startsWith("\"\"\"", i)) {
+                int end = i + 3;
+                while (end < length && !source.startsWith("\"\"\"", end)) {
+                    end += source.startsWith("\\\"\"\"", end) ? 4 : 1;
+                }
+                if (end >= length) {
+                    throw new IllegalArgumentException("Unterminated block string");
+                }
+                tokens.add(source.substring(i, end + 3));
+                i = end + 3;
+            } else if (c == '"') {
+                int end = i + 1;
+                while (end < length && source.charAt(end) != '"') {
+                    end += source.charAt(end) == '\\' ? 2 : 1;
+                }
+                if (end >= length) {
+                    throw new IllegalArgumentException("Unterminated string");
+                }
+                tokens.add(source.substring(i, end + 1));
+                i = end + 1;
+            } else if (source.startsWith("...", i)) {
+                tokens.add("...");
+                i += 3;
+            } else if (PUNCTUATORS.contains(String.valueOf(c))) {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '-') {
+                int end = i + 1;
+                while (end < length && isNamePart(source.charAt(end))) {
+                    end++;
+                }
+                tokens.add(source.substring(i, end));
+                i = end;
+            } else {
+                throw new IllegalArgumentException("Unexpected character '" + c + "'");
+            }
+        }
+        return tokens;
+    }
+    
+    // Names plus the characters numbers can contain (digits, sign, exponent, decimal point)
+    private static boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '+' || c == '-';
+    }
+    
+    private static class Parser {
+        private final List<String> tokens;
+        private int position;
+        
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+        
+        List<Operation> operations() {
+            List<Operation> operations = new ArrayList<>();
+            while (position < tokens.size()) {
+                String token = tokens.get(position);
+                if (token.equals("{")) {
+                    operations.add(new Operation(OperationType.QUERY, null, rootFields()));
+                } else if (token.equals("query") || token.equals("mutation") || token.equals("subscription")) {
+                    OperationType type = OperationType.valueOf(token.toUpperCase());
+                    position++;
+                    String name = null;
+                    if (isName(tokens.get(position))) {
+                        name = tokens.get(position++);
+                    }
+                    if (tokens.get(position).equals("(")) {
+                        skipBalanced("(", ")");
+                    }
+                    skipDirectives();
+                    operations.add(new Operation(type, name, rootFields()));
+                } else if (token.equals("fragment")) {
+                    while (!tokens.get(position).equals("{")) {
+                        position++;
+                    }
+                    skipBalanced("{", "}");
+                } else {
+                    throw new IllegalArgumentException("Unexpected token '" + token + "'");
+                }
+            }
+            if (operations.isEmpty()) {
+                throw new IllegalArgumentException("Document contains no operations");
+            }
+            return operations;
+        }
+        
+        private List<String> rootFields() {
+            expect("{");
+            List<String> fields = new ArrayList<>();
+            boolean fragments = false;
+            while (!tokens.get(position).equals("}")) {
+                if (tokens.get(position).equals("...")) {
+                    fragments = true;
+                    position++;
+                    if (tokens.get(position).equals("on")) {
+                        position += 2;
+                    } else if (isName(tokens.get(position))) {
+                        position++;
+                    }
+                } else {
+                    String field = tokens.get(position++);
+                    if (tokens.get(position).equals(":")) {
+                        field = tokens.get(position + 1);
+                        position += 2;
+                    }
+                    fields.add(field);
+                    if (tokens.get(position).equals("(")) {
+                        skipBalanced("(", ")");
+                    }
+                }
+                skipDirectives();
+                if (tokens.get(position).equals("{")) {
+                    skipBalanced("{", "}");
+                }
+            }
+            position++;
+            return fragments ? null : Collections.unmodifiableList(fields);
+        }
+        
+        private void skipDirectives() {
+            while (tokens.get(position).equals("@")) {
+                position += 2;
+                if (tokens.get(position).equals("(")) {
+                    skipBalanced("(", ")");
+                }
+            }
+        }
+        
+        private void skipBalanced(String open, String close) {
+            int depth = 0;
+            do {
+                String token = tokens.get(position++);
+                if (token.equals(open)) {
+                    depth++;
+                } else if (token.equals(close)) {
+                    depth--;
+                }
+            } while (depth > 0);
+        }
+        
+        private void expect(String token) {
+            if (!tokens.get(position).equals(token)) {
+                throw new IllegalArgumentException("Expected '" + token + "' but found '" + tokens.get(position) + "'");
+            }
+            position++;
+        }
+        
+        private static boolean isName(String token) {
+            return !token.isEmpty() && (Character.isLetter(token.charAt(0)) || token.charAt(0) == '_');
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.graphbanking.apigateway.graphql;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+
+// Helpers for filters working on GraphQL requests
+public final class GraphQLExchange {
+    
+    private GraphQLExchange() {
+    }
+    
+    public static GraphQLRequest request(ServerWebExchange exchange) {
+        return exchange.getAttribute(GraphQLRequest.ATTRIBUTE);
+    }
+    
+    // Replaces the request body that is forwarded upstream; it can be read any number of times
+    public static ServerWebExchange withBody(ServerWebExchange exchange, byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(exchange.getRequest().getHeaders());
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        headers.setContentLength(body.length);
+        
+        ServerHttpRequest request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+            
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+        return exchange.mutate().request(request).build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.graphbanking.apigateway.graphql;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+// The JSON body of a GraphQL POST as sent by clients. The query document is parsed lazily, and
+// only if a filter asks for it.
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GraphQLRequest {
+    
+    // Exchange attribute under which GraphQLRequestCaptureFilter stores the parsed request
+    public static final String ATTRIBUTE = GraphQLRequest.class.getName();
+    
+    private String query;
+    private String operationName;
+    private Map<String, Object> variables;
+    private Map<String, Object> extensions;
+    
+    @JsonIgnore
+    private GraphQLDocument document;
+    @JsonIgnore
+    private boolean documentParsed;
+    
+    public String getQuery() { return query; }
+    public void setQuery(String query) {
+        this.query = query;
+        this.document = null;
+        this.documentParsed = false;
+    }
+    
+    public String getOperationName() { return operationName; }
+    public void setOperationName(String operationName) { this.operationName = operationName; }
+    
+    public Map<String, Object> getVariables() { return variables; }
+    public void setVariables(Map<String, Object> variables) { this.variables = variables; }
+    
+    public Map<String, Object> getExtensions() { return extensions; }
+    public void setExtensions(Map<String, Object> extensions) { this.extensions = extensions; }
+    
+    // sha256Hash of the Apollo persistedQuery extension, if the client sent one
+    @JsonIgnore
+    public String getPersistedQueryHash() {
+        Object persistedQuery = extensions != null ? extensions.get("persistedQuery") : null;
+        if (persistedQuery instanceof Map<?, ?> map && map.get("sha256Hash") instanceof String hash) {
+            return hash;
+        }
+        return null;
+    }
+    
+    // Null when there is no query text or it cannot be parsed; the service reports the error then
+    @JsonIgnore
+    public GraphQLDocument getDocument() {
+        if (!documentParsed) {
+            documentParsed = true;
+            try {
+                document = query != null ? GraphQLDocument.parse(query) : null;
+            } catch (IllegalArgumentException e) {
+                document = null;
+            }
+        }
+        return document;
+    }
+    
+    @JsonIgnore
+    public GraphQLDocument.Operation getOperation() {
+        GraphQLDocument parsed = getDocument();
+        return parsed != null ? parsed.operation(operationName) : null;
+    }
+}
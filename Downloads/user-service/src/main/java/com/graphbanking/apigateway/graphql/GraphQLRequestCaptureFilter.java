@@ -0,0 +1,55 @@
+package com.graphbanking.apigateway.graphql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.apigateway.filter.FilterOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+// Reads the body of every GraphQL POST once, keeps the parsed request as an exchange attribute for
+// the filters after it and forwards the same bytes upstream
+@Component
+public class GraphQLRequestCaptureFilter implements GlobalFilter, Ordered {
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (exchange.getRequest().getMethod() != HttpMethod.POST
+                || !exchange.getRequest().getPath().value().equals("/graphql")) {
+            return chain.filter(exchange);
+        }
+        
+        return DataBufferUtils.join(exchange.getRequest().getBody())
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            })
+            .defaultIfEmpty(new byte[0])
+            .flatMap(body -> {
+                ServerWebExchange captured = GraphQLExchange.withBody(exchange, body);
+                try {
+                    captured.getAttributes().put(GraphQLRequest.ATTRIBUTE, objectMapper.readValue(body, GraphQLRequest.class));
+                } catch (IOException e) {
+                    // Not a JSON GraphQL request; pass it through for the service to reject
+                }
+                return chain.filter(captured);
+            });
+    }
+    
+    @Override
+    public int getOrder() {
+        return FilterOrder.GRAPHQL_CAPTURE;
+    }
+}
@@ -0,0 +1,119 @@
+package com.graphbanking.apigateway.graphql;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.apigateway.filter.BodyCapturingResponse;
+import com.graphbanking.apigateway.filter.FilterOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+// Automatic persisted queries (Apollo APQ). Clients send only the sha256 hash of a query they have
+// registered before; the gateway restores the text for its own filters and, once a service has the
+// hash too, forwards the hash with graphql-java's PersistedQueryMarker in place of the query.
+// If a service has lost the hash (restart, another instance) it answers PersistedQueryNotFound,
+// the gateway forgets the pairing and the client's retry carries the full query again.
+@Component
+public class PersistedQueryFilter implements GlobalFilter, Ordered {
+    
+    // graphql.execution.preparsed.persisted.PersistedQuerySupport.PERSISTED_QUERY_MARKER
+    static final String PERSISTED_QUERY_MARKER = "PersistedQueryMarker";
+    static final String NOT_FOUND = "PersistedQueryNotFound";
+    
+    private final ObjectMapper objectMapper;
+    private final PersistedQueryRegistry registry;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter registered;
+    
+    public PersistedQueryFilter(ObjectMapper objectMapper, PersistedQueryRegistry registry, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.hits = Counter.builder("gateway.apq.requests").tag("outcome", "hit").register(meterRegistry);
+        this.misses = Counter.builder("gateway.apq.requests").tag("outcome", "miss").register(meterRegistry);
+        this.registered = Counter.builder("gateway.apq.requests").tag("outcome", "registered").register(meterRegistry);
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        GraphQLRequest request = GraphQLExchange.request(exchange);
+        String hash = request != null ? request.getPersistedQueryHash() : null;
+        if (hash == null) {
+            return chain.filter(exchange);
+        }
+        
+        String query = request.getQuery();
+        if (query == null || query.isBlank() || query.equals(PERSISTED_QUERY_MARKER)) {
+            query = registry.lookup(hash);
+            if (query == null) {
+                misses.increment();
+                return notFound(exchange.getResponse());
+            }
+            hits.increment();
+            request.setQuery(query);
+        } else if (registry.register(hash, query)) {
+            registered.increment();
+        } else {
+            // Hash does not match the query; the service reports that to the client
+            return chain.filter(exchange);
+        }
+        
+        String service = String.valueOf(exchange.getRequest().getHeaders().getFirst("X-Service"));
+        boolean hashOnly = registry.isKnownUpstream(service, hash);
+        ServerWebExchange forwarded = GraphQLExchange.withBody(exchange, body(request, hashOnly ? PERSISTED_QUERY_MARKER : query));
+        BodyCapturingResponse response = new BodyCapturingResponse(forwarded.getResponse(), body -> {
+            boolean notFound = new String(body, StandardCharsets.UTF_8).contains(NOT_FOUND);
+            if (notFound || (!hashOnly && forwarded.getResponse().getStatusCode() == HttpStatus.OK)) {
+                registry.setKnownUpstream(service, hash, !notFound);
+            }
+        });
+        return chain.filter(forwarded.mutate().response(response).build());
+    }
+    
+    private byte[] body(GraphQLRequest request, String query) {
+        GraphQLRequest upstream = new GraphQLRequest();
+        upstream.setQuery(query);
+        upstream.setOperationName(request.getOperationName());
+        upstream.setVariables(request.getVariables());
+        upstream.setExtensions(request.getExtensions());
+        try {
+            return objectMapper.writeValueAsBytes(upstream);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize GraphQL request", e);
+        }
+    }
+    
+    // Same error the services produce, recognised by Apollo's persisted query link as "send the query"
+    private Mono<Void> notFound(ServerHttpResponse response) {
+        Map<String, Object> error = Map.of(
+            "message", NOT_FOUND,
+            "extensions", Map.of("classification", NOT_FOUND, "code", "PERSISTED_QUERY_NOT_FOUND"));
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(Map.of("errors", List.of(error)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+    
+    @Override
+    public int getOrder() {
+        return FilterOrder.PERSISTED_QUERY;
+    }
+}
@@ -0,0 +1,78 @@
+package com.graphbanking.apigateway.graphql;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Query documents registered by hash through the Apollo APQ protocol, and which services already hold
+// a given hash so the gateway can forward the hash alone. Both maps are bounded LRUs; forgetting an
+// entry only costs one extra round trip with the full query.
+@Component
+public class PersistedQueryRegistry {
+    
+    private final Map<String, String> queries;
+    private final Map<String, Boolean> upstream;
+    
+    public PersistedQueryRegistry(@Value("${graphbanking.gateway.persisted-queries.max-entries:10000}") int maxEntries,
+                                  MeterRegistry meterRegistry) {
+        this.queries = lru(maxEntries);
+        this.upstream = lru(maxEntries);
+        Gauge.builder("gateway.apq.size", this, PersistedQueryRegistry::size).register(meterRegistry);
+    }
+    
+    public synchronized String lookup(String hash) {
+        return queries.get(hash);
+    }
+    
+    // Returns false, and stores nothing, when the hash does not belong to the query
+    public boolean register(String hash, String query) {
+        if (!hash.equalsIgnoreCase(sha256(query))) {
+            return false;
+        }
+        synchronized (this) {
+            queries.put(hash, query);
+        }
+        return true;
+    }
+    
+    public synchronized boolean isKnownUpstream(String service, String hash) {
+        return upstream.containsKey(service + ":" + hash);
+    }
+    
+    public synchronized void setKnownUpstream(String service, String hash, boolean known) {
+        if (known) {
+            upstream.put(service + ":" + hash, Boolean.TRUE);
+        } else {
+            upstream.remove(service + ":" + hash);
+        }
+    }
+    
+    public synchronized int size() {
+        return queries.size();
+    }
+    
+    static String sha256(String query) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static <V> Map<String, V> lru(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
@@ -0,0 +1,126 @@
+package com.graphbanking.apigateway.limit;
+
+import com.graphbanking.apigateway.filter.FilterOrder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.DispatcherHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Caps the requests in flight to each route at a limit that adapts to the route's latency
+// (GradientConcurrencyLimit). Requests over the limit are answered at once by the route's
+// FallbackController endpoint (503) instead of queueing in the upstream's pools, which is what lets
+// latency collapse under overload. The circuit breakers remain the backstop for hard failures.
+@Component
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+    
+    private static final Set<String> FALLBACK_SERVICES = Set.of("user", "account", "transaction");
+    
+    private final Map<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+    private final ObjectProvider<DispatcherHandler> dispatcherHandler;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${graphbanking.gateway.concurrency.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${graphbanking.gateway.concurrency.initial-limit:20}")
+    private int initialLimit;
+    
+    @Value("${graphbanking.gateway.concurrency.min-limit:4}")
+    private int minLimit;
+    
+    @Value("${graphbanking.gateway.concurrency.max-limit:500}")
+    private int maxLimit;
+    
+    @Value("${graphbanking.gateway.concurrency.tolerance:1.5}")
+    private double tolerance;
+    
+    @Value("${graphbanking.gateway.concurrency.smoothing:0.2}")
+    private double smoothing;
+    
+    public AdaptiveConcurrencyFilter(ObjectProvider<DispatcherHandler> dispatcherHandler, MeterRegistry meterRegistry) {
+        this.dispatcherHandler = dispatcherHandler;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        // A WebSocket holds its slot for the life of the connection, which says nothing about load
+        if (!enabled || route == null || exchange.getRequest().getHeaders().getUpgrade() != null) {
+            return chain.filter(exchange);
+        }
+        
+        RouteLimiter limiter = limiters.computeIfAbsent(route.getId(), this::createLimiter);
+        int inflight = limiter.inflight.incrementAndGet();
+        if (inflight > limiter.limit.getLimit()) {
+            limiter.inflight.decrementAndGet();
+            meterRegistry.counter("gateway.concurrency.rejected", "route", route.getId()).increment();
+            return shed(exchange, route);
+        }
+        
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            limiter.inflight.decrementAndGet();
+            // Only calls that reached the service say anything about its latency
+            if (ServerWebExchangeUtils.isAlreadyRouted(exchange) && signal != SignalType.CANCEL) {
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                boolean dropped = signal == SignalType.ON_ERROR
+                    || status == HttpStatus.BAD_GATEWAY || status == HttpStatus.SERVICE_UNAVAILABLE
+                    || status == HttpStatus.GATEWAY_TIMEOUT;
+                limiter.limit.onSample(System.nanoTime() - start, inflight, dropped);
+            }
+        });
+    }
+    
+    private Mono<Void> shed(ServerWebExchange exchange, Route route) {
+        String service = route.getId().split("-")[0];
+        if (!FALLBACK_SERVICES.contains(service)) {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return exchange.getResponse().setComplete();
+        }
+        ServerHttpRequest fallback = exchange.getRequest().mutate().uri(URI.create("/fallback/" + service)).build();
+        return dispatcherHandler.getObject().handle(exchange.mutate().request(fallback).build());
+    }
+    
+    private RouteLimiter createLimiter(String routeId) {
+        RouteLimiter limiter = new RouteLimiter(new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing));
+        Gauge.builder("gateway.concurrency.limit", limiter.limit, GradientConcurrencyLimit::getLimit)
+            .tag("route", routeId).register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter.inflight, AtomicInteger::get)
+            .tag("route", routeId).register(meterRegistry);
+        return limiter;
+    }
+    
+    private static class RouteLimiter {
+        private final GradientConcurrencyLimit limit;
+        private final AtomicInteger inflight = new AtomicInteger();
+        
+        RouteLimiter(GradientConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+    }
+    
+    @Override
+    public int getOrder() {
+        return FilterOrder.CONCURRENCY_LIMIT;
+    }
+}
@@ -0,0 +1,139 @@
+package com.graphbanking.apigateway.limit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.apigateway.filter.FilterOrder;
+import com.graphbanking.apigateway.graphql.GraphQLExchange;
+import com.graphbanking.apigateway.graphql.GraphQLRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-client budget of GraphQL query cost. Each client holds a token bucket of cost units; a request
+// is admitted only if the bucket covers the cost its document had last time (1 when it is new), and
+// is then charged the actual cost the service reports in X-GraphQL-Cost. A client running expensive
+// queries is throttled on its own instead of exhausting the services' connection pools for everyone.
+@Component
+public class CostBudgetFilter implements GlobalFilter, Ordered {
+    
+    static final String COST_HEADER = "X-GraphQL-Cost";
+    static final String REMAINING_HEADER = "X-Cost-Budget-Remaining";
+    
+    private final KeyResolver clientKeyResolver;
+    private final ObjectMapper objectMapper;
+    private final Map<String, TokenBucket> budgets;
+    private final Map<String, Integer> estimates;
+    private final Counter rejected;
+    
+    @Value("${graphbanking.gateway.cost.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${graphbanking.gateway.cost.budget:20000}")
+    private double budget;
+    
+    @Value("${graphbanking.gateway.cost.refill-per-second:500}")
+    private double refillPerSecond;
+    
+    public CostBudgetFilter(@Qualifier("clientKeyResolver") KeyResolver clientKeyResolver, ObjectMapper objectMapper,
+                            @Value("${graphbanking.gateway.cost.max-clients:10000}") int maxClients,
+                            MeterRegistry meterRegistry) {
+        this.clientKeyResolver = clientKeyResolver;
+        this.objectMapper = objectMapper;
+        this.budgets = lru(maxClients);
+        this.estimates = lru(maxClients);
+        this.rejected = Counter.builder("gateway.cost.rejected").register(meterRegistry);
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        GraphQLRequest request = GraphQLExchange.request(exchange);
+        if (!enabled || request == null || request.getDocument() == null) {
+            return chain.filter(exchange);
+        }
+        
+        String document = exchange.getRequest().getHeaders().getFirst("X-Service") + ":" + request.getDocument().getNormalized();
+        return clientKeyResolver.resolve(exchange).flatMap(client -> {
+            TokenBucket bucket = bucket(client);
+            int estimate = estimate(document);
+            if (!bucket.tryConsume(estimate)) {
+                rejected.increment();
+                return reject(exchange.getResponse(), bucket.secondsUntil(estimate));
+            }
+            
+            ServerHttpResponse response = exchange.getResponse();
+            response.beforeCommit(() -> {
+                String cost = response.getHeaders().getFirst(COST_HEADER);
+                if (cost != null) {
+                    try {
+                        int actual = Integer.parseInt(cost);
+                        bucket.consume(actual - estimate);
+                        remember(document, actual);
+                    } catch (NumberFormatException e) {
+                        // Not from one of our services; the estimate stays charged
+                    }
+                }
+                response.getHeaders().set(REMAINING_HEADER, String.valueOf((long) bucket.available()));
+                return Mono.empty();
+            });
+            return chain.filter(exchange);
+        });
+    }
+    
+    private synchronized TokenBucket bucket(String client) {
+        return budgets.computeIfAbsent(client, key -> new TokenBucket(budget, refillPerSecond));
+    }
+    
+    private synchronized int estimate(String document) {
+        return estimates.getOrDefault(document, 1);
+    }
+    
+    private synchronized void remember(String document, int cost) {
+        estimates.put(document, cost);
+    }
+    
+    private Mono<Void> reject(ServerHttpResponse response, long retryAfterSeconds) {
+        Map<String, Object> error = Map.of(
+            "message", "Query cost budget exhausted, retry in " + retryAfterSeconds + "s",
+            "extensions", Map.of("code", "COST_BUDGET_EXCEEDED"));
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(Map.of("errors", List.of(error)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+    
+    private static <V> Map<String, V> lru(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+    
+    @Override
+    public int getOrder() {
+        return FilterOrder.COST_BUDGET;
+    }
+}
@@ -0,0 +1,84 @@
+package com.graphbanking.apigateway.limit;
+
+// Concurrency limit that follows upstream latency, after Netflix's Gradient2: the ratio between the
+// long-term and the recent round trip time says whether requests are starting to queue. While latency
+// stays near its baseline the limit grows by roughly sqrt(limit) per sample; as it rises above
+// tolerance x baseline the limit shrinks, down to half per sample. Failed or timed out calls back the
+// limit off directly. Sampling only counts while at least half the limit is in use, so an idle route
+// does not grow an unbounded limit it never tested.
+public class GradientConcurrencyLimit {
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final Ewma longRtt;
+    private final Ewma shortRtt;
+    private double estimatedLimit;
+    
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = 0.9;
+        this.longRtt = new Ewma(600);
+        this.shortRtt = new Ewma(10);
+        this.estimatedLimit = initialLimit;
+    }
+    
+    public synchronized int getLimit() {
+        return (int) estimatedLimit;
+    }
+    
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (dropped) {
+            estimatedLimit = clamp(estimatedLimit * backoffRatio);
+            return;
+        }
+        double recent = shortRtt.add(rttNanos);
+        double baseline = longRtt.add(rttNanos);
+        
+        // Let the baseline catch up after a sustained latency drop instead of pinning the limit high
+        if (baseline / recent > 2) {
+            longRtt.scale(0.95);
+        }
+        if (inflight < estimatedLimit / 2) {
+            return;
+        }
+        
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / recent));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = clamp(estimatedLimit * (1 - smoothing) + newLimit * smoothing);
+    }
+    
+    private double clamp(double limit) {
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+    
+    // Exponentially weighted moving average; a plain average until the window has filled once
+    private static class Ewma {
+        private final int window;
+        private int count;
+        private double value;
+        
+        Ewma(int window) {
+            this.window = window;
+        }
+        
+        double add(double sample) {
+            if (count < window) {
+                count++;
+                value += (sample - value) / count;
+            } else {
+                value += (sample - value) * 2 / (window + 1);
+            }
+            return value;
+        }
+        
+        void scale(double factor) {
+            value *= factor;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.graphbanking.apigateway.limit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Buckets in this gateway instance only; the default, and what tests run against. Idle clients fall
+// out of the bounded LRU and come back with a full bucket.
+@Component
+@ConditionalOnProperty(name = "graphbanking.gateway.rate-limit.store", havingValue = "local", matchIfMissing = true)
+public class LocalTokenBucketStore implements TokenBucketStore {
+    
+    private final Map<String, TokenBucket> buckets;
+    
+    public LocalTokenBucketStore(@Value("${graphbanking.gateway.rate-limit.max-clients:100000}") int maxClients) {
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxClients;
+            }
+        };
+    }
+    
+    @Override
+    public Mono<Decision> tryConsume(String key, long capacity, double refillPerSecond, int requested) {
+        TokenBucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond));
+        }
+        boolean allowed = bucket.tryConsume(requested);
+        return Mono.just(new Decision(allowed, (long) bucket.available()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.graphbanking.apigateway.limit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+// Buckets shared by all gateway instances. Refill and consume run as one Lua script, so concurrent
+// requests on different instances cannot both spend the last token. If Redis is unreachable the
+// request is let through: losing rate limiting for a moment is better than losing the gateway.
+@Component
+@ConditionalOnProperty(name = "graphbanking.gateway.rate-limit.store", havingValue = "redis")
+public class RedisTokenBucketStore implements TokenBucketStore {
+    
+    private static final Logger log = LoggerFactory.getLogger(RedisTokenBucketStore.class);
+    private static final Duration TIMEOUT = Duration.ofMillis(200);
+    
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisScript<List> script = RedisScript.of(new ClassPathResource("scripts/token-bucket.lua"), List.class);
+    
+    public RedisTokenBucketStore(ReactiveStringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public Mono<Decision> tryConsume(String key, long capacity, double refillPerSecond, int requested) {
+        List<String> keys = List.of("rate_limit.{" + key + "}.tokens", "rate_limit.{" + key + "}.timestamp");
+        List<String> args = List.of(String.valueOf(capacity), String.valueOf(refillPerSecond),
+                                    String.valueOf(System.currentTimeMillis()), String.valueOf(requested));
+        return redisTemplate.execute(script, keys, args)
+            .next()
+            .timeout(TIMEOUT)
+            .map(result -> {
+                List<Long> values = (List<Long>) result;
+                return new Decision(values.get(0) == 1L, values.get(1));
+            })
+            .onErrorResume(e -> {
+                log.warn("Rate limit store unavailable, allowing request: {}", e.toString());
+                return Mono.just(new Decision(true, -1));
+            });
+    }
+}
@@ -0,0 +1,50 @@
+package com.graphbanking.apigateway.limit;
+
+// Token bucket refilled continuously at a fixed rate up to its capacity. consume() may take the
+// balance below zero: a debit for work that already happened is never refused, it is paid back by
+// the refill before the next admission.
+public class TokenBucket {
+    
+    private final double capacity;
+    private final double refillPerSecond;
+    private double tokens;
+    private long refilledAt;
+    
+    public TokenBucket(double capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.tokens = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+    
+    public synchronized boolean tryConsume(double amount) {
+        refill();
+        if (tokens < amount) {
+            return false;
+        }
+        tokens -= amount;
+        return true;
+    }
+    
+    public synchronized void consume(double amount) {
+        refill();
+        tokens -= amount;
+    }
+    
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+    
+    // Seconds until the given amount is available
+    public synchronized long secondsUntil(double amount) {
+        refill();
+        return tokens >= amount ? 0 : (long) Math.ceil((amount - tokens) / refillPerSecond);
+    }
+    
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) / 1e9 * refillPerSecond);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,64 @@
+package com.graphbanking.apigateway.limit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// RateLimiter for the RequestRateLimiter filter: one token bucket per route and client (see
+// clientKeyResolver), held by the configured TokenBucketStore. Routes can override the defaults with
+// token-bucket-rate-limiter.replenishRate / burstCapacity / requestedTokens filter args.
+@Component
+@Primary
+public class TokenBucketRateLimiter extends AbstractRateLimiter<TokenBucketRateLimiter.Config> {
+    
+    public static final String CONFIGURATION_PROPERTY_NAME = "token-bucket-rate-limiter";
+    
+    private final TokenBucketStore store;
+    private final MeterRegistry meterRegistry;
+    private final Config defaultConfig = new Config();
+    
+    public TokenBucketRateLimiter(TokenBucketStore store, ConfigurationService configurationService, MeterRegistry meterRegistry,
+                                  @Value("${graphbanking.gateway.rate-limit.replenish-rate:50}") int replenishRate,
+                                  @Value("${graphbanking.gateway.rate-limit.burst-capacity:100}") long burstCapacity) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        this.defaultConfig.setReplenishRate(replenishRate);
+        this.defaultConfig.setBurstCapacity(burstCapacity);
+    }
+    
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        return store.tryConsume(routeId + ":" + id, config.getBurstCapacity(), config.getReplenishRate(), config.getRequestedTokens())
+            .map(decision -> {
+                meterRegistry.counter("gateway.rate-limit.requests", "route", routeId,
+                                      "outcome", decision.isAllowed() ? "allowed" : "rejected").increment();
+                return new Response(decision.isAllowed(), Map.of(
+                    "X-RateLimit-Remaining", String.valueOf(decision.getRemaining()),
+                    "X-RateLimit-Replenish-Rate", String.valueOf(config.getReplenishRate()),
+                    "X-RateLimit-Burst-Capacity", String.valueOf(config.getBurstCapacity())));
+            });
+    }
+    
+    public static class Config {
+        private int replenishRate;
+        private long burstCapacity;
+        private int requestedTokens = 1;
+        
+        public int getReplenishRate() { return replenishRate; }
+        public void setReplenishRate(int replenishRate) { this.replenishRate = replenishRate; }
+        
+        public long getBurstCapacity() { return burstCapacity; }
+        public void setBurstCapacity(long burstCapacity) { this.burstCapacity = burstCapacity; }
+        
+        public int getRequestedTokens() { return requestedTokens; }
+        public void setRequestedTokens(int requestedTokens) { this.requestedTokens = requestedTokens; }
+    }
+}
@@ -0,0 +1,23 @@
+package com.graphbanking.apigateway.limit;
+
+import reactor.core.publisher.Mono;
+
+// Where the rate limiter keeps its token buckets: in this process, or in a store shared by every
+// gateway instance so a client's limit holds across the cluster
+public interface TokenBucketStore {
+    
+    Mono<Decision> tryConsume(String key, long capacity, double refillPerSecond, int requested);
+    
+    class Decision {
+        private final boolean allowed;
+        private final long remaining;
+        
+        public Decision(boolean allowed, long remaining) {
+            this.allowed = allowed;
+            this.remaining = remaining;
+        }
+        
+        public boolean isAllowed() { return allowed; }
+        public long getRemaining() { return remaining; }
+    }
+}
@@ -0,0 +1,100 @@
+package com.graphbanking.common.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+// Keeps a client's reads on the primary for a while after it committed a write, until the replica
+// has had time to catch up. The client carries the marker, not the server: a committed write sets
+// the time of the write as a response header and cookie, and any instance that sees it on a later
+// request honours it. API clients echo the header, browsers send the cookie back on their own.
+// A marker from the future or older than the window is ignored. Work outside a request is not tracked.
+public class ReadYourWritesTracker {
+    
+    public static final String HEADER = "X-Last-Write";
+    public static final String COOKIE = "last_write";
+    
+    private static final String WRITTEN_AT = ReadYourWritesTracker.class.getName() + ".writtenAt";
+    
+    private final long windowMillis;
+    
+    public ReadYourWritesTracker(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+    
+    // Called after a write committed on a request thread; the marker goes out with the response
+    public void recordWrite() {
+        ServletRequestAttributes attributes = currentAttributes();
+        if (attributes == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // Later reads in the same request stick to the primary too
+        attributes.getRequest().setAttribute(WRITTEN_AT, now);
+        HttpServletResponse response = attributes.getResponse();
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        response.setHeader(HEADER, Long.toString(now));
+        Cookie cookie = new Cookie(COOKIE, Long.toString(now));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, Math.ceil(windowMillis / 1000.0)));
+        response.addCookie(cookie);
+    }
+    
+    public boolean wroteRecently() {
+        ServletRequestAttributes attributes = currentAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        long writtenAt = lastWrite(attributes.getRequest());
+        long age = System.currentTimeMillis() - writtenAt;
+        return writtenAt > 0 && age >= 0 && age < windowMillis;
+    }
+    
+    // Whether the current thread is serving an HTTP request
+    public static boolean inRequest() {
+        return currentAttributes() != null;
+    }
+    
+    private static long lastWrite(HttpServletRequest request) {
+        if (request.getAttribute(WRITTEN_AT) instanceof Long writtenAt) {
+            return writtenAt;
+        }
+        long fromHeader = parse(request.getHeader(HEADER));
+        if (fromHeader > 0) {
+            return fromHeader;
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    return parse(cookie.getValue());
+                }
+            }
+        }
+        return 0;
+    }
+    
+    private static long parse(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    private static ServletRequestAttributes currentAttributes() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes : null;
+    }
+}
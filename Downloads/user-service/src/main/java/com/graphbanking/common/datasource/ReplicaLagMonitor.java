@@ -0,0 +1,80 @@
+package com.graphbanking.common.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Polls the replica for its replication lag on a background thread. The replica is only usable
+// while the last probe succeeded, is recent and reported a lag within the limit; until the first
+// probe, after a failed one, or when probes stop, reads go to the primary.
+public class ReplicaLagMonitor implements DisposableBean {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagMillis;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile long lagMillis = Long.MAX_VALUE;
+    private volatile long checkedAt;
+    
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, Duration interval, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLag.toMillis();
+        this.intervalMillis = interval.toMillis();
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagMillis == Long.MAX_VALUE ? Double.NaN : monitor.lagMillis)
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::probe, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    // The lag query returns the replica's delay in seconds, or NULL when the replica is not usable
+    public void probe() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            long lag = Long.MAX_VALUE;
+            if (resultSet.next()) {
+                double lagSeconds = resultSet.getDouble(1);
+                if (!resultSet.wasNull()) {
+                    lag = (long) (lagSeconds * 1000);
+                }
+            }
+            lagMillis = lag;
+        } catch (SQLException | RuntimeException e) {
+            if (lagMillis != Long.MAX_VALUE) {
+                log.warn("Replica lag probe failed, routing reads to the primary", e);
+            }
+            lagMillis = Long.MAX_VALUE;
+        }
+        checkedAt = System.currentTimeMillis();
+    }
+    
+    public boolean isUsable() {
+        return lagMillis <= maxLagMillis && System.currentTimeMillis() - checkedAt <= 3 * intervalMillis;
+    }
+    
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package com.graphbanking.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Shared by the services, imported from each application class. Only active when a replica URL is
+// configured; otherwise the auto-configured single datasource is used as before. The primary pool
+// keeps reading spring.datasource.*, the replica pool graphbanking.datasource.replica.*.
+@Configuration
+@ConditionalOnProperty(name = "graphbanking.datasource.replica.url")
+public class ReplicaRoutingConfig {
+    
+    // NULL, read as unusable, while the WAL receiver is not streaming: a disconnected replica has
+    // replayed everything it received and would otherwise report no lag at all. Seeing the
+    // receiver's status takes pg_read_all_stats (or superuser) for the replica user.
+    private static final String POSTGRES_LAG_QUERY =
+        "SELECT CASE WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL " +
+        "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    @Bean
+    @ConfigurationProperties("graphbanking.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${graphbanking.datasource.replica.url}") String url,
+                                              @Value("${graphbanking.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${graphbanking.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .driverClassName(properties.determineDriverClassName())
+            .url(url)
+            .username(username)
+            .password(password)
+            .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+    
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${graphbanking.datasource.replica.lag-query:" + POSTGRES_LAG_QUERY + "}") String lagQuery,
+                                               @Value("${graphbanking.datasource.replica.max-lag-ms:1000}") long maxLagMillis,
+                                               @Value("${graphbanking.datasource.replica.lag-check-interval-ms:1000}") long intervalMillis,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replica, lagQuery, Duration.ofMillis(maxLagMillis), Duration.ofMillis(intervalMillis), meterRegistry);
+    }
+    
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${graphbanking.datasource.replica.read-your-writes-ms:5000}") long windowMillis) {
+        return new ReadYourWritesTracker(Duration.ofMillis(windowMillis));
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lagMonitor, ReadYourWritesTracker writesTracker,
+                                 MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, lagMonitor, writesTracker, meterRegistry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
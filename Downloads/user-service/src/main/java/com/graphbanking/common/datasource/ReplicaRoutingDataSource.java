@@ -0,0 +1,113 @@
+package com.graphbanking.common.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Sends connections for read-only transactions to the replica and everything else to the primary.
+// A read-only transaction still goes to the primary when the replica lags too far behind, or when
+// the same client committed a write moments ago and might not see it on the replica yet.
+// onPrimary() keeps the reads it wraps off the replica, as long as the transaction has not fetched
+// its connection yet; isReadingFromReplica() tells code whether what it read may be stale.
+// Must sit behind a LazyConnectionDataSourceProxy so the connection is only fetched once the
+// transaction's read-only flag has been set.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+    private static final ThreadLocal<Boolean> READING_FROM_REPLICA = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+    
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker writesTracker;
+    private final Counter writes;
+    private final Counter stickyReads;
+    private final Counter pinnedReads;
+    private final Counter laggingReads;
+    private final Counter replicaReads;
+    
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    ReadYourWritesTracker writesTracker, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.writesTracker = writesTracker;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.writes = routed(meterRegistry, PRIMARY, "write");
+        this.stickyReads = routed(meterRegistry, PRIMARY, "read-your-writes");
+        this.pinnedReads = routed(meterRegistry, PRIMARY, "pinned");
+        this.laggingReads = routed(meterRegistry, PRIMARY, "replica-lag");
+        this.replicaReads = routed(meterRegistry, REPLICA, "read");
+    }
+    
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            }
+        }
+    }
+    
+    // True while the current transaction's connection came from the replica
+    public static boolean isReadingFromReplica() {
+        return Boolean.TRUE.equals(READING_FROM_REPLICA.get());
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = route();
+        if (REPLICA.equals(target) && TransactionSynchronizationManager.isSynchronizationActive()) {
+            READING_FROM_REPLICA.set(Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    READING_FROM_REPLICA.remove();
+                }
+            });
+        }
+        return target;
+    }
+    
+    private String route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            if (ReadYourWritesTracker.inRequest() && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        writesTracker.recordWrite();
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (Boolean.TRUE.equals(PRIMARY_REQUIRED.get())) {
+            pinnedReads.increment();
+            return PRIMARY;
+        }
+        if (writesTracker.wroteRecently()) {
+            stickyReads.increment();
+            return PRIMARY;
+        }
+        // Without synchronization nothing could clear isReadingFromReplica() afterwards
+        if (!lagMonitor.isUsable() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            laggingReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return REPLICA;
+    }
+    
+    private static Counter routed(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("datasource.routing").tag("target", target).tag("reason", reason).register(meterRegistry);
+    }
+}
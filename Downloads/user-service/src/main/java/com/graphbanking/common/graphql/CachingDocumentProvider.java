@@ -0,0 +1,68 @@
+package com.graphbanking.common.graphql;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+// Skips parsing and validation for documents the service has seen before. Requests carrying an
+// Apollo persistedQuery extension are resolved by hash (the query text may then be omitted or be
+// PersistedQuerySupport.PERSISTED_QUERY_MARKER); plain requests are cached by their query text.
+public class CachingDocumentProvider implements PreparsedDocumentProvider {
+    
+    private final DocumentCache documents;
+    private final ApolloPersistedQuerySupport persistedQueries;
+    
+    public CachingDocumentProvider(int maxDocuments, int maxPersistedQueries, MeterRegistry meterRegistry) {
+        this.documents = new DocumentCache("documents", maxDocuments, meterRegistry);
+        this.persistedQueries = new ApolloPersistedQuerySupport(
+            new BoundedPersistedQueryCache(new DocumentCache("persisted", maxPersistedQueries, meterRegistry)));
+    }
+    
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        if (executionInput.getExtensions() != null && executionInput.getExtensions().containsKey("persistedQuery")) {
+            return persistedQueries.getDocumentAsync(executionInput, parseAndValidateFunction);
+        }
+        return CompletableFuture.completedFuture(
+            documents.get(executionInput.getQuery(), () -> parseAndValidateFunction.apply(executionInput)));
+    }
+    
+    @Override
+    @SuppressWarnings("deprecation")
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        return getDocumentAsync(executionInput, parseAndValidateFunction).join();
+    }
+    
+    // Hash -> document store behind ApolloPersistedQuerySupport, which verifies the hash against the
+    // query text before anything is stored
+    private static class BoundedPersistedQueryCache implements PersistedQueryCache {
+        
+        private final DocumentCache cache;
+        
+        BoundedPersistedQueryCache(DocumentCache cache) {
+            this.cache = cache;
+        }
+        
+        @Override
+        public CompletableFuture<PreparsedDocumentEntry> getPersistedQueryDocumentAsync(Object persistedQueryId,
+                ExecutionInput executionInput, PersistedQueryCacheMiss onCacheMiss) {
+            return CompletableFuture.completedFuture(getPersistedQueryDocument(persistedQueryId, executionInput, onCacheMiss));
+        }
+        
+        @Override
+        @SuppressWarnings("deprecation")
+        public PreparsedDocumentEntry getPersistedQueryDocument(Object persistedQueryId,
+                ExecutionInput executionInput, PersistedQueryCacheMiss onCacheMiss) {
+            return cache.get(persistedQueryId.toString(), () -> onCacheMiss.apply(executionInput.getQuery()));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.graphbanking.common.graphql;
+
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Bounded LRU of parsed and validated documents. Documents with errors are not kept, so malformed or
+// random queries cannot push the hot operations out.
+class DocumentCache {
+    
+    private final Map<String, PreparsedDocumentEntry> entries;
+    private final Counter hits;
+    private final Counter misses;
+    
+    DocumentCache(String name, int maxEntries, MeterRegistry meterRegistry) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparsedDocumentEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("graphql.documents.cache").tag("cache", name).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("graphql.documents.cache").tag("cache", name).tag("result", "miss").register(meterRegistry);
+        Gauge.builder("graphql.documents.cache.size", this, DocumentCache::size).tag("cache", name).register(meterRegistry);
+    }
+    
+    PreparsedDocumentEntry get(String key, Supplier<PreparsedDocumentEntry> parseAndValidate) {
+        synchronized (this) {
+            PreparsedDocumentEntry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return entry;
+            }
+        }
+        // Parsed outside the lock; two threads racing on the same new document both parse it once
+        misses.increment();
+        PreparsedDocumentEntry entry = parseAndValidate.get();
+        if (!entry.hasErrors()) {
+            synchronized (this) {
+                entries.put(key, entry);
+            }
+        }
+        return entry;
+    }
+    
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,38 @@
+package com.graphbanking.common.graphql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Shared by the GraphQL services: imported from each application class
+@Configuration
+public class GraphQLConfig {
+    
+    @Bean
+    public CachingDocumentProvider cachingDocumentProvider(
+            @Value("${graphql.documents.max-entries:2000}") int maxDocuments,
+            @Value("${graphql.persisted-queries.max-entries:10000}") int maxPersistedQueries,
+            MeterRegistry meterRegistry) {
+        return new CachingDocumentProvider(maxDocuments, maxPersistedQueries, meterRegistry);
+    }
+    
+    @Bean
+    public QueryCostInstrumentation queryCostInstrumentation(
+            @Value("${graphql.limits.max-cost:5000}") int maxCost,
+            @Value("${graphql.limits.max-depth:10}") int maxDepth,
+            MeterRegistry meterRegistry) {
+        return new QueryCostInstrumentation(maxCost, maxDepth, meterRegistry);
+    }
+    
+    @Bean
+    public QueryCostInterceptor queryCostInterceptor() {
+        return new QueryCostInterceptor();
+    }
+    
+    @Bean
+    public GraphQlSourceBuilderCustomizer cachingDocumentProviderCustomizer(CachingDocumentProvider provider) {
+        return builder -> builder.configureGraphQl(graphQL -> graphQL.preparsedDocumentProvider(provider));
+    }
+}
@@ -0,0 +1,133 @@
+package com.graphbanking.common.graphql;
+
+import graphql.ExecutionResult;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.schema.GraphQLAppliedDirective;
+import graphql.schema.GraphQLAppliedDirectiveArgument;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Static cost and depth analysis of every operation before it executes. A field costs the weight of
+// its @cost directive (1 for object fields, 0 for leaves without one) plus the cost of its selection,
+// multiplied by the expected list size: the first of the directive's sizeArguments that is set (a list
+// argument counts its elements), else defaultSize. Operations over max-cost or max-depth are rejected;
+// the others report their cost in extensions.cost. Introspection fields are not counted.
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+    
+    public static final String COST_EXTENSION = "cost";
+    
+    private static final String COST_ATTRIBUTE = QueryCostInstrumentation.class.getName() + ".cost";
+    
+    private final int maxCost;
+    private final int maxDepth;
+    private final DistributionSummary costs;
+    
+    public QueryCostInstrumentation(int maxCost, int maxDepth, MeterRegistry meterRegistry) {
+        this.maxCost = maxCost;
+        this.maxDepth = maxDepth;
+        this.costs = DistributionSummary.builder("graphql.operation.cost").register(meterRegistry);
+    }
+    
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                       InstrumentationState state) {
+        ExecutionContext context = parameters.getExecutionContext();
+        QueryTraverser traverser = QueryTraverser.newQueryTraverser()
+            .schema(context.getGraphQLSchema())
+            .document(context.getDocument())
+            .operationName(context.getOperationDefinition().getName())
+            .coercedVariables(context.getCoercedVariables())
+            .build();
+        
+        // Post-order: children report {cost, depth} into their parent's slot; the root is keyed by null
+        Map<QueryVisitorFieldEnvironment, int[]> totals = new HashMap<>();
+        traverser.visitPostOrder(new QueryVisitorStub() {
+            @Override
+            public void visitField(QueryVisitorFieldEnvironment environment) {
+                int[] children = totals.getOrDefault(environment, new int[2]);
+                if (environment.getField().getName().startsWith("__")) {
+                    return;
+                }
+                long cost = fieldCost(environment, children[0]);
+                int[] parent = totals.computeIfAbsent(environment.getParentEnvironment(), key -> new int[2]);
+                parent[0] = (int) Math.min(Integer.MAX_VALUE, parent[0] + cost);
+                parent[1] = Math.max(parent[1], children[1] + 1);
+            }
+        });
+        int[] operation = totals.getOrDefault(null, new int[2]);
+        
+        if (operation[1] > maxDepth) {
+            throw new AbortExecutionException("Query depth " + operation[1] + " exceeds the maximum of " + maxDepth);
+        }
+        if (operation[0] > maxCost) {
+            throw new AbortExecutionException("Query cost " + operation[0] + " exceeds the maximum of " + maxCost);
+        }
+        costs.record(operation[0]);
+        context.getGraphQLContext().put(COST_ATTRIBUTE, operation[0]);
+        return super.beginExecuteOperation(parameters, state);
+    }
+    
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult,
+                                                                       InstrumentationExecutionParameters parameters,
+                                                                       InstrumentationState state) {
+        Integer cost = parameters.getGraphQLContext().get(COST_ATTRIBUTE);
+        if (cost == null) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+        Map<Object, Object> extensions = new LinkedHashMap<>();
+        if (executionResult.getExtensions() != null) {
+            extensions.putAll(executionResult.getExtensions());
+        }
+        extensions.put(COST_EXTENSION, Map.of("requested", cost, "maximum", maxCost));
+        return CompletableFuture.completedFuture(executionResult.transform(builder -> builder.extensions(extensions)));
+    }
+    
+    private static long fieldCost(QueryVisitorFieldEnvironment environment, long childCost) {
+        GraphQLFieldDefinition definition = environment.getFieldDefinition();
+        GraphQLAppliedDirective directive = definition.getAppliedDirective("cost");
+        if (directive == null) {
+            return (GraphQLTypeUtil.isLeaf(definition.getType()) ? 0 : 1) + childCost;
+        }
+        long weight = intArgument(directive, "weight", 1);
+        long size = intArgument(directive, "defaultSize", 1);
+        GraphQLAppliedDirectiveArgument sizeArguments = directive.getArgument("sizeArguments");
+        List<String> names = sizeArguments != null && sizeArguments.getValue() != null ? sizeArguments.getValue() : List.of();
+        for (String name : names) {
+            Object value = environment.getArguments().get(name);
+            if (value instanceof Number number) {
+                size = number.longValue();
+                break;
+            }
+            if (value instanceof Collection<?> collection) {
+                size = collection.size();
+                break;
+            }
+        }
+        return weight + Math.max(size, 1) * childCost;
+    }
+    
+    private static int intArgument(GraphQLAppliedDirective directive, String name, int defaultValue) {
+        GraphQLAppliedDirectiveArgument argument = directive.getArgument(name);
+        Object value = argument != null ? argument.getValue() : null;
+        return value instanceof Number number ? number.intValue() : defaultValue;
+    }
+}
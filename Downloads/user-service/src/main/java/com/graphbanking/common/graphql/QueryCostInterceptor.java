@@ -0,0 +1,25 @@
+package com.graphbanking.common.graphql;
+
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// Copies extensions.cost.requested into a response header so the gateway can charge the client's
+// cost budget without parsing the body
+public class QueryCostInterceptor implements WebGraphQlInterceptor {
+    
+    public static final String COST_HEADER = "X-GraphQL-Cost";
+    
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        return chain.next(request).doOnNext(response -> {
+            Object cost = response.getExtensions().get(QueryCostInstrumentation.COST_EXTENSION);
+            if (cost instanceof Map<?, ?> map && map.get("requested") != null) {
+                response.getResponseHeaders().set(COST_HEADER, map.get("requested").toString());
+            }
+        });
+    }
+}
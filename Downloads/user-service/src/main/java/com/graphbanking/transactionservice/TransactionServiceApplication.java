@@ -1,9 +1,15 @@
 package com.graphbanking.transactionservice;
 
+import com.graphbanking.common.datasource.ReplicaRoutingConfig;
+import com.graphbanking.common.graphql.GraphQLConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@Import({GraphQLConfig.class, ReplicaRoutingConfig.class})
 public class TransactionServiceApplication {
 
 	public static void main(String[] args) {
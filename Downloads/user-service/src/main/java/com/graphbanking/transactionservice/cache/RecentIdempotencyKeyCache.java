@@ -0,0 +1,76 @@
+package com.graphbanking.transactionservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Bounded LRU of recently used idempotency keys (user id + key -> transaction reference), so a
+// client retry is answered without touching transaction_idempotency_keys. Keys are only admitted
+// once the transaction that claimed them has committed.
+@Component
+public class RecentIdempotencyKeyCache {
+    
+    private final Map<String, String> references;
+    private final Counter hits;
+    private final Counter misses;
+    
+    public RecentIdempotencyKeyCache(MeterRegistry meterRegistry,
+                                     @Value("${transaction.idempotency.cache-max-entries:50000}") int maxEntries) {
+        this.references = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("cache.gets").tag("cache", "transactions.idempotency").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "transactions.idempotency").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("cache.size", this, RecentIdempotencyKeyCache::size).tag("cache", "transactions.idempotency").register(meterRegistry);
+    }
+    
+    public synchronized Optional<String> get(Long userId, String key) {
+        String reference = references.get(cacheKey(userId, key));
+        if (reference != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return Optional.ofNullable(reference);
+    }
+    
+    public void putAfterCommit(Long userId, String key, String reference) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(userId, key, reference);
+                }
+            });
+        } else {
+            put(userId, key, reference);
+        }
+    }
+    
+    public synchronized void clear() {
+        references.clear();
+    }
+    
+    public synchronized int size() {
+        return references.size();
+    }
+    
+    private synchronized void put(Long userId, String key, String reference) {
+        references.put(cacheKey(userId, key), reference);
+    }
+    
+    private static String cacheKey(Long userId, String key) {
+        return userId + ":" + key;
+    }
+}
@@ -0,0 +1,192 @@
+package com.graphbanking.transactionservice.cache;
+
+import com.graphbanking.common.datasource.ReplicaRoutingDataSource;
+import com.graphbanking.transactionservice.event.TransactionStatusChangedEvent;
+import com.graphbanking.transactionservice.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Read-through cache for transactions in a terminal state (COMPLETED, FAILED, CANCELLED). Rows are
+// stored encoded by TransactionCodec in a bounded LRU keyed by reference, with an id index next to it.
+// Terminal does not mean final: COMPLETED can still fail and FAILED can be retried. Any status change
+// away from a terminal state, and any delete, evicts the row; changes made on other instances arrive
+// through TerminalTransactionCacheInvalidator, and the TTL bounds how long a missed one is served.
+// A load that raced with an eviction is not admitted. Misses load from the primary: a replica row may
+// predate an eviction this instance has already seen, so one read from a replica is not admitted either.
+@Component
+public class TerminalTransactionCache {
+    
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, Entry> byReference;
+    private final Map<Long, String> referenceById = new HashMap<>();
+    private long invalidations;
+    private long storedBytes;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    
+    public TerminalTransactionCache(MeterRegistry meterRegistry,
+                                    @Value("${transaction.cache.max-entries:100000}") int maxEntries,
+                                    @Value("${transaction.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.byReference = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > TerminalTransactionCache.this.maxEntries) {
+                    forget(eldest.getValue());
+                    TerminalTransactionCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("cache.gets").tag("cache", "transactions.terminal").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "transactions.terminal").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "transactions.terminal").register(meterRegistry);
+        Gauge.builder("cache.size", this, TerminalTransactionCache::size).tag("cache", "transactions.terminal").register(meterRegistry);
+        Gauge.builder("transactions.cache.bytes", this, TerminalTransactionCache::storedBytes).register(meterRegistry);
+    }
+    
+    public Optional<Transaction> getByReference(String reference, Supplier<Optional<Transaction>> loader) {
+        long generation;
+        synchronized (this) {
+            Entry entry = live(byReference.get(reference));
+            if (entry != null) {
+                hits.increment();
+                return Optional.of(TransactionCodec.decode(entry.data));
+            }
+            misses.increment();
+            generation = invalidations;
+        }
+        return admit(ReplicaRoutingDataSource.onPrimary(loader), generation);
+    }
+    
+    public Optional<Transaction> getById(Long id, Supplier<Optional<Transaction>> loader) {
+        long generation;
+        synchronized (this) {
+            String reference = referenceById.get(id);
+            Entry entry = reference != null ? live(byReference.get(reference)) : null;
+            if (entry != null) {
+                hits.increment();
+                return Optional.of(TransactionCodec.decode(entry.data));
+            }
+            misses.increment();
+            generation = invalidations;
+        }
+        return admit(ReplicaRoutingDataSource.onPrimary(loader), generation);
+    }
+    
+    // Non-terminal rows are never cached, so only moves out of a terminal state need an eviction
+    @EventListener
+    public void onStatusChanged(TransactionStatusChangedEvent event) {
+        if (event.getPreviousStatus() != null && event.getPreviousStatus().isTerminal()) {
+            evict(event.getTransactionId());
+        }
+    }
+    
+    // Evicts now and again once the surrounding transaction ends, so a reader that loaded the old
+    // row before the commit cannot put it back
+    public void evict(Long id) {
+        evictNow(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(id);
+                }
+            });
+        }
+    }
+    
+    public synchronized int size() {
+        return byReference.size();
+    }
+    
+    private synchronized long storedBytes() {
+        return storedBytes;
+    }
+    
+    private Optional<Transaction> admit(Optional<Transaction> loaded, long generation) {
+        if (loaded.isPresent() && loaded.get().getTransactionStatus().isTerminal() && cacheable()) {
+            Transaction transaction = loaded.get();
+            byte[] data = TransactionCodec.encode(transaction);
+            synchronized (this) {
+                if (generation == invalidations) {
+                    Entry entry = new Entry(transaction.getId(), data, System.nanoTime() + ttlNanos);
+                    Entry previous = byReference.put(transaction.getTransactionReference(), entry);
+                    if (previous != null) {
+                        forget(previous);
+                    }
+                    referenceById.put(entry.id, transaction.getTransactionReference());
+                    storedBytes += data.length;
+                }
+            }
+        }
+        return loaded;
+    }
+    
+    // An expired entry is dropped on access and reported as absent
+    private Entry live(Entry entry) {
+        if (entry != null && System.nanoTime() - entry.expiresAt >= 0) {
+            String reference = referenceById.get(entry.id);
+            if (reference != null) {
+                byReference.remove(reference);
+            }
+            forget(entry);
+            return null;
+        }
+        return entry;
+    }
+    
+    // A read-write transaction may be looking at its own uncommitted changes, a replica at old ones
+    private static boolean cacheable() {
+        if (ReplicaRoutingDataSource.isReadingFromReplica()) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+            || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+    
+    private synchronized void evictNow(Long id) {
+        invalidations++;
+        String reference = referenceById.get(id);
+        if (reference != null) {
+            Entry entry = byReference.remove(reference);
+            if (entry != null) {
+                forget(entry);
+            }
+        }
+    }
+    
+    private void forget(Entry entry) {
+        referenceById.remove(entry.id);
+        storedBytes -= entry.data.length;
+    }
+    
+    private static class Entry {
+        private final long id;
+        private final byte[] data;
+        private final long expiresAt;
+        
+        Entry(long id, byte[] data, long expiresAt) {
+            this.id = id;
+            this.data = data;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
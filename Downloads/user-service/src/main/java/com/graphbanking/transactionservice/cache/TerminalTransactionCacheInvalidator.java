@@ -0,0 +1,88 @@
+package com.graphbanking.transactionservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.transactionservice.event.OutboxEvent;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.service.TransactionOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Follows the relayed outbox stream so that every instance evicts rows changed by any other one: a
+// status change away from a terminal state, or a delete, drops the row from TerminalTransactionCache.
+// Each instance reads the stream from the position it started at; nothing before that was cached.
+@Component
+public class TerminalTransactionCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(TerminalTransactionCacheInvalidator.class);
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private TransactionOutbox outbox;
+
+    @Autowired
+    private TerminalTransactionCache terminalCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${transaction.cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    private volatile long position = -1;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            position = outbox.lastPosition();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.cache.invalidation.interval-ms:1000}")
+    public void scheduledFollow() {
+        if (enabled && position >= 0) {
+            follow();
+        }
+    }
+
+    // Returns the number of rows evicted
+    public synchronized int follow() {
+        int evicted = 0;
+        List<OutboxEvent> events;
+        do {
+            events = outbox.replay(position, BATCH_SIZE);
+            for (OutboxEvent event : events) {
+                if (invalidates(event)) {
+                    terminalCache.evict(event.getAggregateId());
+                    evicted++;
+                }
+                position = event.getPosition();
+            }
+        } while (events.size() == BATCH_SIZE);
+        return evicted;
+    }
+
+    private boolean invalidates(OutboxEvent event) {
+        if (OutboxEvent.TRANSACTION_DELETED.equals(event.getEventType())) {
+            return true;
+        }
+        if (!OutboxEvent.TRANSACTION_STATUS_CHANGED.equals(event.getEventType())) {
+            return false;
+        }
+        try {
+            String previous = objectMapper.readTree(event.getPayload()).path("previousStatus").asText(null);
+            return previous == null || TransactionStatus.valueOf(previous).isTerminal();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("Unreadable outbox event {}, evicting transaction {}", event.getId(), event.getAggregateId());
+            return true;
+        }
+    }
+}
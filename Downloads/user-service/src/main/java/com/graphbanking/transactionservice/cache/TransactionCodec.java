@@ -0,0 +1,106 @@
+package com.graphbanking.transactionservice.cache;
+
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Compact binary form of a Transaction: a presence bitmask for the nullable columns followed by the
+// values, enums as ordinals and timestamps as epoch seconds plus nanos. Typically ~100 bytes a row.
+final class TransactionCodec {
+    
+    private static final int FROM_ACCOUNT = 1;
+    private static final int TO_ACCOUNT = 1 << 1;
+    private static final int DESCRIPTION = 1 << 2;
+    private static final int FAILURE_REASON = 1 << 3;
+    private static final int CREATED_AT = 1 << 4;
+    private static final int UPDATED_AT = 1 << 5;
+    private static final int PROCESSED_AT = 1 << 6;
+    
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+    
+    private TransactionCodec() {
+    }
+    
+    static byte[] encode(Transaction transaction) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            int present = (transaction.getFromAccountId() != null ? FROM_ACCOUNT : 0)
+                | (transaction.getToAccountId() != null ? TO_ACCOUNT : 0)
+                | (transaction.getDescription() != null ? DESCRIPTION : 0)
+                | (transaction.getFailureReason() != null ? FAILURE_REASON : 0)
+                | (transaction.getCreatedAt() != null ? CREATED_AT : 0)
+                | (transaction.getUpdatedAt() != null ? UPDATED_AT : 0)
+                | (transaction.getProcessedAt() != null ? PROCESSED_AT : 0);
+            out.writeByte(present);
+            out.writeLong(transaction.getId());
+            out.writeUTF(transaction.getTransactionReference());
+            out.writeLong(transaction.getUserId());
+            out.writeByte(transaction.getTransactionType().ordinal());
+            out.writeByte(transaction.getTransactionStatus().ordinal());
+            byte[] unscaled = transaction.getAmount().unscaledValue().toByteArray();
+            out.writeByte(transaction.getAmount().scale());
+            out.writeByte(unscaled.length);
+            out.write(unscaled);
+            out.writeUTF(transaction.getCurrency());
+            if ((present & FROM_ACCOUNT) != 0) out.writeLong(transaction.getFromAccountId());
+            if ((present & TO_ACCOUNT) != 0) out.writeLong(transaction.getToAccountId());
+            if ((present & DESCRIPTION) != 0) out.writeUTF(transaction.getDescription());
+            if ((present & FAILURE_REASON) != 0) out.writeUTF(transaction.getFailureReason());
+            if ((present & CREATED_AT) != 0) writeTime(out, transaction.getCreatedAt());
+            if ((present & UPDATED_AT) != 0) writeTime(out, transaction.getUpdatedAt());
+            if ((present & PROCESSED_AT) != 0) writeTime(out, transaction.getProcessedAt());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    // Returns a new, detached instance on every call so callers can never share or mutate a cached row
+    static Transaction decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int present = in.readUnsignedByte();
+            Transaction transaction = new Transaction();
+            transaction.setId(in.readLong());
+            transaction.setTransactionReference(in.readUTF());
+            transaction.setUserId(in.readLong());
+            transaction.setTransactionType(TYPES[in.readUnsignedByte()]);
+            transaction.setTransactionStatus(STATUSES[in.readUnsignedByte()]);
+            int scale = in.readByte();
+            byte[] unscaled = new byte[in.readUnsignedByte()];
+            in.readFully(unscaled);
+            transaction.setAmount(new BigDecimal(new BigInteger(unscaled), scale));
+            transaction.setCurrency(in.readUTF());
+            if ((present & FROM_ACCOUNT) != 0) transaction.setFromAccountId(in.readLong());
+            if ((present & TO_ACCOUNT) != 0) transaction.setToAccountId(in.readLong());
+            if ((present & DESCRIPTION) != 0) transaction.setDescription(in.readUTF());
+            if ((present & FAILURE_REASON) != 0) transaction.setFailureReason(in.readUTF());
+            if ((present & CREATED_AT) != 0) transaction.setCreatedAt(readTime(in));
+            if ((present & UPDATED_AT) != 0) transaction.setUpdatedAt(readTime(in));
+            if ((present & PROCESSED_AT) != 0) transaction.setProcessedAt(readTime(in));
+            return transaction;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+    
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
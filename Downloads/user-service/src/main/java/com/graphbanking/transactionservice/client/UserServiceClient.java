@@ -0,0 +1,68 @@
+package com.graphbanking.transactionservice.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.transactionservice.dto.UserSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Talks to the user service's GraphQL endpoint directly (service to service, not through the gateway)
+@Component
+public class UserServiceClient {
+    
+    private static final String USERS_BY_IDS =
+        "query UsersByIds($ids: [ID!]!) { usersByIds(ids: $ids) { id name email createdAt updatedAt } }";
+    
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+    
+    public UserServiceClient(RestClient.Builder builder, ObjectMapper objectMapper,
+                             @Value("${services.user.url:http://localhost:8081}") String baseUrl,
+                             @Value("${services.user.timeout-ms:2000}") int timeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        this.restClient = builder.baseUrl(baseUrl).requestFactory(requestFactory).build();
+        this.objectMapper = objectMapper;
+    }
+    
+    // Resolves all ids with one request; unknown ids are absent from the returned map
+    public Map<Long, UserSummary> getUsersByIds(Collection<Long> ids) {
+        Map<Long, UserSummary> users = new HashMap<>();
+        if (ids.isEmpty()) {
+            return users;
+        }
+        
+        JsonNode response;
+        try {
+            response = restClient.post()
+                .uri("/graphql")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("query", USERS_BY_IDS, "variables", Map.of("ids", ids)))
+                .retrieve()
+                .body(JsonNode.class);
+        } catch (RestClientException e) {
+            throw new RuntimeException("User service unavailable: " + e.getMessage(), e);
+        }
+        
+        JsonNode found = response == null ? null : response.path("data").path("usersByIds");
+        if (found == null || !found.isArray()) {
+            throw new RuntimeException("User service returned no users: " + (response == null ? "empty response" : response.path("errors")));
+        }
+        for (JsonNode user : found) {
+            if (!user.isNull()) {
+                UserSummary summary = objectMapper.convertValue(user, UserSummary.class);
+                users.put(summary.getId(), summary);
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,53 @@
+package com.graphbanking.transactionservice.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+@Configuration
+public class PersistenceConfig {
+
+    private static final String MIGRATION_ROOT = "classpath:db/transaction/";
+
+    // The schema is owned by the versioned migrations under db/transaction; vendor specific
+    // scripts (partial indexes etc.) live next to the shared ones in a folder per database.
+    // Databases created by the old ddl-auto setup are baselined below V1, whose DDL is idempotent.
+    @Bean
+    public FlywayConfigurationCustomizer transactionMigrations() {
+        return configuration -> configuration
+            .table("transaction_schema_history")
+            .baselineOnMigrate(true)
+            .baselineVersion("0")
+            .locations(MIGRATION_ROOT + "common", MIGRATION_ROOT + databaseVendor(configuration.getDataSource()));
+    }
+
+    // Inserts and updates are grouped per entity so bulk imports go out as JDBC batches; on Postgres
+    // pair this with reWriteBatchedInserts=true on the JDBC URL to turn each batch into multi-row INSERTs
+    @Bean
+    public HibernatePropertiesCustomizer schemaManagedByMigrations(@Value("${transaction.jdbc.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.put(AvailableSettings.HBM2DDL_AUTO, "none");
+            properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.put(AvailableSettings.ORDER_INSERTS, true);
+            properties.put(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
+
+    private static String databaseVendor(DataSource dataSource) {
+        try {
+            String url = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getURL);
+            return DatabaseDriver.fromJdbcUrl(url).getId();
+        } catch (MetaDataAccessException e) {
+            throw new RuntimeException("Unable to determine database vendor for migrations", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.graphbanking.transactionservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ProcessingConfig {
+
+    // Worker pool for PendingTransactionProcessor; each worker holds at most one DB connection at a time
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public TaskExecutor transactionProcessingExecutor(@Value("${transaction.processing.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("txn-processing-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // With spring.threads.virtual.enabled each worker gets its own virtual thread; the concurrency
+    // limit keeps the same bound on simultaneous batches (and therefore DB connections)
+    @Bean(name = "transactionProcessingExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public TaskExecutor virtualTransactionProcessingExecutor(@Value("${transaction.processing.workers:4}") int workers) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("txn-processing-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(workers);
+        return executor;
+    }
+}
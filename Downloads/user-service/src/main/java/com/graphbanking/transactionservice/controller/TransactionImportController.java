@@ -0,0 +1,130 @@
+package com.graphbanking.transactionservice.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.transactionservice.dto.TransactionBatchResult;
+import com.graphbanking.transactionservice.service.TransactionImportService;
+import com.graphbanking.transactionservice.service.TransactionImportService.BatchImport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Streaming import of settlement files. The body is read line by line and handed to the import
+// in chunks, so memory use does not depend on the size of the file.
+@RestController
+@RequestMapping("/api/transactions")
+public class TransactionImportController {
+    
+    private static final TypeReference<Map<String, Object>> ROW = new TypeReference<>() {};
+    
+    @Autowired
+    private TransactionImportService importService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // A header row naming the CreateTransactionInput fields, then one record per line. Errors carry the
+    // record's line number in the file, header and blank lines included.
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public TransactionBatchResult importCsv(InputStream body) throws IOException {
+        BatchImport batch = importService.begin();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return batch.finish();
+            }
+            List<String> header = parseCsvLine(headerLine.replace("\uFEFF", ""));
+            if (header == null) {
+                throw new RuntimeException("Malformed CSV header");
+            }
+            batch.skip();
+            
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    batch.skip();
+                    continue;
+                }
+                List<String> values = parseCsvLine(line);
+                if (values == null || values.size() != header.size()) {
+                    batch.reject("Expected " + header.size() + " columns");
+                    continue;
+                }
+                Map<String, Object> fields = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    fields.put(header.get(i).trim(), values.get(i));
+                }
+                batch.add(fields);
+            }
+        }
+        return batch.finish();
+    }
+    
+    // One JSON object per line, using the CreateTransactionInput field names; errors carry the line number
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public TransactionBatchResult importNdjson(InputStream body) throws IOException {
+        BatchImport batch = importService.begin();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    batch.skip();
+                    continue;
+                }
+                Map<String, Object> fields;
+                try {
+                    fields = objectMapper.readValue(line, ROW);
+                } catch (JsonProcessingException e) {
+                    batch.reject("Malformed JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                batch.add(fields);
+            }
+        }
+        return batch.finish();
+    }
+    
+    // RFC 4180 quoting within a single line; returns null for an unterminated quoted field
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
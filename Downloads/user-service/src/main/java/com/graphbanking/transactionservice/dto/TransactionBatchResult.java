@@ -0,0 +1,21 @@
+package com.graphbanking.transactionservice.dto;
+
+import java.util.List;
+
+// Outcome of a batch import. failed counts every rejected row, errors lists at most the
+// configured number of them so a badly broken file cannot blow up the response.
+public class TransactionBatchResult {
+    private final int created;
+    private final int failed;
+    private final List<TransactionRowError> errors;
+    
+    public TransactionBatchResult(int created, int failed, List<TransactionRowError> errors) {
+        this.created = created;
+        this.failed = failed;
+        this.errors = errors;
+    }
+    
+    public int getCreated() { return created; }
+    public int getFailed() { return failed; }
+    public List<TransactionRowError> getErrors() { return errors; }
+}
@@ -0,0 +1,33 @@
+package com.graphbanking.transactionservice.dto;
+
+import com.graphbanking.transactionservice.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionConnection {
+    private final List<TransactionEdge> edges;
+    private final PageInfo pageInfo;
+    
+    public TransactionConnection(List<TransactionEdge> edges, PageInfo pageInfo) {
+        this.edges = edges;
+        this.pageInfo = pageInfo;
+    }
+    
+    // Builds a page from a slice fetched with one extra row, which only signals that a next page exists
+    public static TransactionConnection of(List<Transaction> slice, int pageSize, boolean hasPreviousPage) {
+        int size = Math.min(slice.size(), pageSize);
+        List<TransactionEdge> edges = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = slice.get(i);
+            edges.add(new TransactionEdge(TransactionCursor.of(transaction).encode(), transaction));
+        }
+        
+        String startCursor = edges.isEmpty() ? null : edges.get(0).getCursor();
+        String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).getCursor();
+        return new TransactionConnection(edges, new PageInfo(slice.size() > pageSize, hasPreviousPage, startCursor, endCursor));
+    }
+    
+    public List<TransactionEdge> getEdges() { return edges; }
+    public PageInfo getPageInfo() { return pageInfo; }
+}
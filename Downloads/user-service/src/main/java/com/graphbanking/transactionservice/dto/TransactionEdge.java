@@ -0,0 +1,16 @@
+package com.graphbanking.transactionservice.dto;
+
+import com.graphbanking.transactionservice.model.Transaction;
+
+public class TransactionEdge {
+    private final String cursor;
+    private final Transaction node;
+    
+    public TransactionEdge(String cursor, Transaction node) {
+        this.cursor = cursor;
+        this.node = node;
+    }
+    
+    public String getCursor() { return cursor; }
+    public Transaction getNode() { return node; }
+}
@@ -0,0 +1,15 @@
+package com.graphbanking.transactionservice.dto;
+
+// A rejected row of a batch import; rows are numbered from 1 in input order
+public class TransactionRowError {
+    private final int row;
+    private final String message;
+    
+    public TransactionRowError(int row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+    
+    public int getRow() { return row; }
+    public String getMessage() { return message; }
+}
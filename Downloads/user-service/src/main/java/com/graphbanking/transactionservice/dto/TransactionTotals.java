@@ -0,0 +1,26 @@
+package com.graphbanking.transactionservice.dto;
+
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+
+import java.math.BigDecimal;
+
+// One row of a GROUP BY transaction_status, transaction_type aggregate
+public class TransactionTotals {
+    private final TransactionStatus status;
+    private final TransactionType type;
+    private final long count;
+    private final BigDecimal amount;
+    
+    public TransactionTotals(TransactionStatus status, TransactionType type, long count, BigDecimal amount) {
+        this.status = status;
+        this.type = type;
+        this.count = count;
+        this.amount = amount != null ? amount : BigDecimal.ZERO;
+    }
+    
+    public TransactionStatus getStatus() { return status; }
+    public TransactionType getType() { return type; }
+    public long getCount() { return count; }
+    public BigDecimal getAmount() { return amount; }
+}
@@ -0,0 +1,25 @@
+package com.graphbanking.transactionservice.dto;
+
+// The fields of a user service User that the transaction schema exposes on Transaction.user
+public class UserSummary {
+    private Long id;
+    private String name;
+    private String email;
+    private String createdAt;
+    private String updatedAt;
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    
+    public String getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,34 @@
+package com.graphbanking.transactionservice.dto;
+
+import java.math.BigDecimal;
+
+// The transactions field of the GraphQL type is resolved separately, and only when selected
+public class UserTransactionSummary {
+    private Long userId;
+    private long completedCount;
+    private long pendingCount;
+    private long failedCount;
+    private BigDecimal totalDeposits;
+    private BigDecimal totalWithdrawals;
+    private BigDecimal totalTransfers;
+    
+    public UserTransactionSummary(Long userId, long completedCount, long pendingCount, long failedCount,
+                                BigDecimal totalDeposits, BigDecimal totalWithdrawals, BigDecimal totalTransfers) {
+        this.userId = userId;
+        this.completedCount = completedCount;
+        this.pendingCount = pendingCount;
+        this.failedCount = failedCount;
+        this.totalDeposits = totalDeposits;
+        this.totalWithdrawals = totalWithdrawals;
+        this.totalTransfers = totalTransfers;
+    }
+    
+    // Getters
+    public Long getUserId() { return userId; }
+    public long getCompletedCount() { return completedCount; }
+    public long getPendingCount() { return pendingCount; }
+    public long getFailedCount() { return failedCount; }
+    public BigDecimal getTotalDeposits() { return totalDeposits; }
+    public BigDecimal getTotalWithdrawals() { return totalWithdrawals; }
+    public BigDecimal getTotalTransfers() { return totalTransfers; }
+}
@@ -0,0 +1,41 @@
+package com.graphbanking.transactionservice.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Embedded broker for single-node and offline setups: relayed events are handed straight to
+// listeners registered in this JVM. A listener that throws is logged and skipped so it cannot
+// hold back delivery to the others; it catches up through TransactionOutbox.replay.
+@Component
+@ConditionalOnProperty(name = "transaction.outbox.broker", havingValue = "in-process", matchIfMissing = true)
+public class InProcessTransactionEventBroker implements TransactionEventBroker {
+    
+    private static final Logger log = LoggerFactory.getLogger(InProcessTransactionEventBroker.class);
+    
+    private final List<Consumer<OutboxEvent>> listeners = new CopyOnWriteArrayList<>();
+    
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            for (Consumer<OutboxEvent> listener : listeners) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    log.warn("Outbox listener failed on event {}", event.getId(), e);
+                }
+            }
+        }
+    }
+    
+    // Returns a handle that removes the listener again
+    public Runnable subscribe(Consumer<OutboxEvent> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+}
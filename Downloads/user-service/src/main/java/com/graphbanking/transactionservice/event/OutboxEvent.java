@@ -0,0 +1,41 @@
+package com.graphbanking.transactionservice.event;
+
+import java.time.LocalDateTime;
+
+// One row of transaction_outbox as handed to the broker. Consumers de-duplicate redeliveries on the
+// id and replay from the position, which OutboxRelay assigns in commit order as it publishes.
+public class OutboxEvent {
+    
+    public static final String TRANSACTION_CREATED = "TransactionCreated";
+    public static final String TRANSACTION_STATUS_CHANGED = "TransactionStatusChanged";
+    public static final String TRANSACTION_DELETED = "TransactionDeleted";
+    
+    private final Long id;
+    private final Long aggregateId;
+    private final String eventType;
+    private final String payload;
+    private final LocalDateTime createdAt;
+    private final Long position;
+    
+    public OutboxEvent(Long id, Long aggregateId, String eventType, String payload, LocalDateTime createdAt,
+                       Long position) {
+        this.id = id;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+        this.position = position;
+    }
+    
+    public OutboxEvent withPosition(long position) {
+        return new OutboxEvent(id, aggregateId, eventType, payload, createdAt, position);
+    }
+    
+    public Long getId() { return id; }
+    public Long getAggregateId() { return aggregateId; }
+    public String getEventType() { return eventType; }
+    public String getPayload() { return payload; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    // Null until the event has been relayed
+    public Long getPosition() { return position; }
+}
@@ -0,0 +1,11 @@
+package com.graphbanking.transactionservice.event;
+
+import java.util.List;
+
+// Destination for relayed outbox events. Delivery is at least once: a batch that fails part way
+// is published again on the next relay run, so consumers de-duplicate on OutboxEvent.getId().
+public interface TransactionEventBroker {
+    
+    // Events arrive in outbox order; throwing leaves the whole batch unpublished
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,104 @@
+package com.graphbanking.transactionservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.transactionservice.service.TransactionOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+
+// Fans committed status changes out to GraphQL subscribers. The changes come from the relayed outbox
+// stream rather than from events raised in this JVM, so a subscriber connected to any instance hears
+// about changes made on every instance, and never about one that was rolled back. Each instance reads
+// the stream from the position it started at. Every subscriber gets its own bounded buffer: a slow
+// client loses its oldest updates rather than holding up the publisher or the other subscribers.
+@Component
+public class TransactionStatusBroadcaster {
+    
+    private static final Logger log = LoggerFactory.getLogger(TransactionStatusBroadcaster.class);
+    private static final int BATCH_SIZE = 1000;
+    
+    private final Sinks.Many<TransactionStatusChangedEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final Counter dropped;
+    
+    @Autowired
+    private TransactionOutbox outbox;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${transaction.subscriptions.buffer-size:256}")
+    private int bufferSize;
+    
+    private volatile long position = -1;
+    
+    public TransactionStatusBroadcaster(MeterRegistry meterRegistry) {
+        this.dropped = Counter.builder("transactions.subscriptions.dropped").register(meterRegistry);
+        Gauge.builder("transactions.subscriptions.active", sink, Sinks.Many::currentSubscriberCount).register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        position = outbox.lastPosition();
+    }
+    
+    @Scheduled(fixedDelayString = "${transaction.subscriptions.interval-ms:250}")
+    public void scheduledFollow() {
+        if (position >= 0) {
+            follow();
+        }
+    }
+    
+    // Returns the number of status changes emitted
+    public synchronized int follow() {
+        int emitted = 0;
+        List<OutboxEvent> events;
+        do {
+            events = outbox.replay(position, BATCH_SIZE);
+            for (OutboxEvent event : events) {
+                if (OutboxEvent.TRANSACTION_STATUS_CHANGED.equals(event.getEventType())) {
+                    TransactionStatusChangedEvent change = read(event);
+                    if (change != null) {
+                        sink.emitNext(change, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+                        emitted++;
+                    }
+                }
+                position = event.getPosition();
+            }
+        } while (events.size() == BATCH_SIZE);
+        return emitted;
+    }
+    
+    // Changes for one user, optionally narrowed to a single transaction. Filtered before buffering, so
+    // the buffer only ever holds this subscriber's own events and other users' traffic cannot push
+    // them out.
+    public Flux<TransactionStatusChangedEvent> subscribe(Long userId, Long transactionId) {
+        return sink.asFlux()
+            .filter(event -> userId.equals(event.getUserId())
+                && (transactionId == null || transactionId.equals(event.getTransactionId())))
+            .onBackpressureBuffer(bufferSize, event -> dropped.increment(), BufferOverflowStrategy.DROP_OLDEST);
+    }
+    
+    private TransactionStatusChangedEvent read(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), TransactionStatusChangedEvent.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable outbox event {} for transaction {}, not broadcast", event.getId(), event.getAggregateId());
+            return null;
+        }
+    }
+}
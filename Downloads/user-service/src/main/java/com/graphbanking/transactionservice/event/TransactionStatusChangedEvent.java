@@ -0,0 +1,78 @@
+package com.graphbanking.transactionservice.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Published inside the database transaction that changed the status; synchronous
+// listeners run in that same transaction. Also the payload of the outbox event it is recorded as.
+public class TransactionStatusChangedEvent {
+    private final Long transactionId;
+    private final String transactionReference;
+    private final Long userId;
+    private final Long fromAccountId;
+    private final Long toAccountId;
+    private final TransactionType transactionType;
+    private final BigDecimal amount;
+    private final String currency;
+    private final TransactionStatus previousStatus;
+    private final TransactionStatus newStatus;
+    private final LocalDateTime occurredAt;
+    
+    public TransactionStatusChangedEvent(Transaction transaction, TransactionStatus previousStatus) {
+        this.transactionId = transaction.getId();
+        this.transactionReference = transaction.getTransactionReference();
+        this.userId = transaction.getUserId();
+        this.fromAccountId = transaction.getFromAccountId();
+        this.toAccountId = transaction.getToAccountId();
+        this.transactionType = transaction.getTransactionType();
+        this.amount = transaction.getAmount();
+        this.currency = transaction.getCurrency();
+        this.previousStatus = previousStatus;
+        this.newStatus = transaction.getTransactionStatus();
+        this.occurredAt = LocalDateTime.now();
+    }
+    
+    // Read back from an outbox payload
+    @JsonCreator
+    public TransactionStatusChangedEvent(@JsonProperty("transactionId") Long transactionId,
+                                         @JsonProperty("transactionReference") String transactionReference,
+                                         @JsonProperty("userId") Long userId,
+                                         @JsonProperty("fromAccountId") Long fromAccountId,
+                                         @JsonProperty("toAccountId") Long toAccountId,
+                                         @JsonProperty("transactionType") TransactionType transactionType,
+                                         @JsonProperty("amount") BigDecimal amount,
+                                         @JsonProperty("currency") String currency,
+                                         @JsonProperty("previousStatus") TransactionStatus previousStatus,
+                                         @JsonProperty("newStatus") TransactionStatus newStatus,
+                                         @JsonProperty("occurredAt") LocalDateTime occurredAt) {
+        this.transactionId = transactionId;
+        this.transactionReference = transactionReference;
+        this.userId = userId;
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.currency = currency;
+        this.previousStatus = previousStatus;
+        this.newStatus = newStatus;
+        this.occurredAt = occurredAt;
+    }
+    
+    public Long getTransactionId() { return transactionId; }
+    public String getTransactionReference() { return transactionReference; }
+    public Long getUserId() { return userId; }
+    public Long getFromAccountId() { return fromAccountId; }
+    public Long getToAccountId() { return toAccountId; }
+    public TransactionType getTransactionType() { return transactionType; }
+    public BigDecimal getAmount() { return amount; }
+    public String getCurrency() { return currency; }
+    public TransactionStatus getPreviousStatus() { return previousStatus; }
+    public TransactionStatus getNewStatus() { return newStatus; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
@@ -8,8 +8,10 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "transactions")
 public class Transaction {
+    // Sequence ids (allocated 50 at a time) keep JDBC insert batching available; IDENTITY disables it
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_id")
+    @SequenceGenerator(name = "transaction_id", sequenceName = "transaction_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "transaction_reference", nullable = false, unique = true)
@@ -60,6 +62,9 @@ public class Transaction {
     @Column(name = "processed_at")
     private LocalDateTime processedAt;
     
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+    
     // Constructors
     public Transaction() {
         this.transactionStatus = TransactionStatus.PENDING;
@@ -117,6 +122,9 @@ public class Transaction {
     public LocalDateTime getProcessedAt() { return processedAt; }
     public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
     
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(LocalDateTime claimedAt) { this.claimedAt = claimedAt; }
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
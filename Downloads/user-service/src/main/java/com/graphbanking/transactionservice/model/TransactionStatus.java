@@ -16,4 +16,22 @@ public enum TransactionStatus {
     public String getDisplayName() {
         return displayName;
     }
+
+    // Outcomes the processor never moves a transaction on from by itself; only the explicit moves
+    // allowed by canTransitionTo lead out of them
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+    
+    // The only moves out of a terminal state are reversing a completed transaction and
+    // retrying or abandoning a failed one; a cancelled transaction stays cancelled
+    public boolean canTransitionTo(TransactionStatus next) {
+        return switch (this) {
+            case PENDING -> next != PENDING;
+            case PROCESSING -> next != PROCESSING;
+            case COMPLETED -> next == FAILED;
+            case FAILED -> next == PENDING || next == CANCELLED;
+            case CANCELLED -> false;
+        };
+    }
 } 
\ No newline at end of file
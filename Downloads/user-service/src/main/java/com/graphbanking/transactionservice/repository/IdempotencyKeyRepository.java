@@ -0,0 +1,68 @@
+package com.graphbanking.transactionservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Plain JDBC access to transaction_idempotency_keys. Claiming a key is a single insert that does
+// nothing when the key exists; a concurrent claim of the same key waits on the primary key until
+// the first one commits or rolls back, so exactly one request gets to create the transaction.
+// MERGE (H2) checks for the key before it inserts, so the loser of a race can instead fail on the
+// primary key; that is the same answer as finding the key taken.
+@Repository
+public class IdempotencyKeyRepository {
+
+    private static final String POSTGRES_CLAIM =
+        "INSERT INTO transaction_idempotency_keys (user_id, idempotency_key, transaction_reference, created_at) " +
+        "VALUES (?, ?, ?, ?) ON CONFLICT (user_id, idempotency_key) DO NOTHING";
+
+    private static final String MERGE_CLAIM =
+        "MERGE INTO transaction_idempotency_keys k " +
+        "USING (SELECT CAST(? AS BIGINT) AS user_id, CAST(? AS VARCHAR(128)) AS idempotency_key, " +
+        "CAST(? AS VARCHAR(255)) AS transaction_reference, CAST(? AS TIMESTAMP) AS created_at) d " +
+        "ON k.user_id = d.user_id AND k.idempotency_key = d.idempotency_key " +
+        "WHEN NOT MATCHED THEN INSERT (user_id, idempotency_key, transaction_reference, created_at) " +
+        "VALUES (d.user_id, d.idempotency_key, d.transaction_reference, d.created_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    @Autowired
+    public IdempotencyKeyRepository(JdbcTemplate jdbcTemplate) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        String url = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), DatabaseMetaData::getURL);
+        this.postgres = DatabaseDriver.fromJdbcUrl(url) == DatabaseDriver.POSTGRESQL;
+    }
+
+    // True if this call claimed the key for the given reference, false if it was already taken
+    public boolean claim(Long userId, String key, String reference) {
+        try {
+            return jdbcTemplate.update(postgres ? POSTGRES_CLAIM : MERGE_CLAIM,
+                                       userId, key, reference, Timestamp.valueOf(LocalDateTime.now())) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // Includes DuplicateKeyException
+            return false;
+        }
+    }
+
+    public Optional<String> findReference(Long userId, String key) {
+        List<String> references = jdbcTemplate.queryForList(
+            "SELECT transaction_reference FROM transaction_idempotency_keys WHERE user_id = ? AND idempotency_key = ?",
+            String.class, userId, key);
+        return references.stream().findFirst();
+    }
+
+    public int deleteCreatedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM transaction_idempotency_keys WHERE created_at < ?", Timestamp.valueOf(cutoff));
+    }
+}
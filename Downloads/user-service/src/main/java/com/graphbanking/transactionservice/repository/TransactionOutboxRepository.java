@@ -0,0 +1,95 @@
+package com.graphbanking.transactionservice.repository;
+
+import com.graphbanking.transactionservice.event.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Plain JDBC access to transaction_outbox; rows are appended by the writing transaction and only
+// ever touched again by the relay (published_at, stream_position) and the retention purge
+@Repository
+public class TransactionOutboxRepository {
+
+    private static final String COLUMNS = "id, aggregate_id, event_type, payload, created_at, stream_position";
+
+    private static final RowMapper<OutboxEvent> ROW_MAPPER = (rs, rowNum) -> new OutboxEvent(
+        rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4), rs.getTimestamp(5).toLocalDateTime(),
+        rs.getObject(6, Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TransactionOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(Long aggregateId, String eventType, String payload) {
+        jdbcTemplate.update(
+            "INSERT INTO transaction_outbox (aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)",
+            aggregateId, eventType, payload, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public void insertAll(List<Long> aggregateIds, String eventType, List<String> payloads) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(aggregateIds.size());
+        for (int i = 0; i < aggregateIds.size(); i++) {
+            rows.add(new Object[] {aggregateIds.get(i), eventType, payloads.get(i), now});
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO transaction_outbox (aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)",
+            rows);
+    }
+
+    // Serializes relays across instances for the rest of the transaction and returns the last
+    // position handed out, so positions commit in the order they were assigned
+    public long lockLastPosition() {
+        Long position = jdbcTemplate.queryForObject(
+            "SELECT last_position FROM transaction_outbox_position WHERE id = 1 FOR UPDATE", Long.class);
+        return position != null ? position : 0;
+    }
+
+    public void updateLastPosition(long position) {
+        jdbcTemplate.update("UPDATE transaction_outbox_position SET last_position = ? WHERE id = 1", position);
+    }
+
+    // The oldest committed events not yet relayed; call with the position lock held
+    public List<OutboxEvent> lockUnpublished(int limit) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM transaction_outbox WHERE published_at IS NULL ORDER BY id LIMIT ? FOR UPDATE",
+            ROW_MAPPER, limit);
+    }
+
+    public void markPublished(List<OutboxEvent> events, LocalDateTime publishedAt) {
+        Timestamp timestamp = Timestamp.valueOf(publishedAt);
+        jdbcTemplate.batchUpdate("UPDATE transaction_outbox SET published_at = ?, stream_position = ? WHERE id = ?",
+            events.stream().map(event -> new Object[] {timestamp, event.getPosition(), event.getId()}).toList());
+    }
+
+    // Relayed events after the given stream position
+    public List<OutboxEvent> findAfter(long afterPosition, int limit) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM transaction_outbox WHERE stream_position > ? ORDER BY stream_position LIMIT ?",
+            ROW_MAPPER, afterPosition, limit);
+    }
+
+    public long findLastPosition() {
+        Long position = jdbcTemplate.queryForObject(
+            "SELECT last_position FROM transaction_outbox_position WHERE id = 1", Long.class);
+        return position != null ? position : 0;
+    }
+
+    public long countUnpublished() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction_outbox WHERE published_at IS NULL", Long.class);
+        return count != null ? count : 0;
+    }
+
+    public int deletePublishedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM transaction_outbox WHERE published_at < ?", Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,155 @@
+package com.graphbanking.transactionservice.repository;
+
+import com.graphbanking.transactionservice.dto.TransactionTotals;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Monthly partitions of transactions (Postgres only, see db/transaction/postgresql/V7) and the
+// transactions_archive cold tier they are moved into once they fall out of the retention window
+@Repository
+public class TransactionPartitionRepository {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String COLUMNS =
+        "id, transaction_reference, from_account_id, to_account_id, user_id, transaction_type, transaction_status, " +
+        "amount, currency, description, failure_reason, created_at, updated_at, processed_at";
+
+    private static final RowMapper<Transaction> ROW_MAPPER = BeanPropertyRowMapper.newInstance(Transaction.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    @Autowired
+    public TransactionPartitionRepository(JdbcTemplate jdbcTemplate) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        String url = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), DatabaseMetaData::getURL);
+        this.postgres = DatabaseDriver.fromJdbcUrl(url) == DatabaseDriver.POSTGRESQL;
+    }
+
+    public boolean isPartitioned() {
+        return postgres;
+    }
+
+    public String createPartition(YearMonth month) {
+        return jdbcTemplate.queryForObject("SELECT create_transactions_partition(?)", String.class,
+                                           Date.valueOf(month.atDay(1)));
+    }
+
+    // Months that currently have their own partition, oldest first; the default partition is left out
+    public List<YearMonth> findPartitionMonths() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'transactions'", String.class)
+            .stream()
+            .map(TransactionPartitionRepository::monthOf)
+            .flatMap(Optional::stream)
+            .sorted()
+            .toList();
+    }
+
+    // Transactions still being worked on must not leave the hot table
+    public boolean hasOpenTransactions(YearMonth month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM " + partitionName(month) + " WHERE transaction_status IN ('PENDING', 'PROCESSING'))",
+            Boolean.class));
+    }
+
+    // Detaches the partition, copies it into the archive and drops it; run inside one transaction
+    public int archivePartition(YearMonth month) {
+        String partition = partitionName(month);
+        jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+        int archived = jdbcTemplate.update(
+            "INSERT INTO transactions_archive (" + COLUMNS + ") SELECT " + COLUMNS + " FROM " + partition);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        return archived;
+    }
+
+    public List<Transaction> findArchivedByUserIdAndDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM transactions_archive WHERE user_id = ? AND created_at BETWEEN ? AND ?",
+            ROW_MAPPER, userId, Timestamp.valueOf(startDate), Timestamp.valueOf(endDate));
+    }
+
+    public List<Transaction> findArchivedByAccountIdAndDateRange(Long accountId, LocalDateTime startDate, LocalDateTime endDate) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM transactions_archive WHERE from_account_id = ? AND created_at BETWEEN ? AND ? " +
+            "UNION ALL " +
+            "SELECT " + COLUMNS + " FROM transactions_archive WHERE to_account_id = ? " +
+            "AND (from_account_id IS NULL OR from_account_id <> ?) AND created_at BETWEEN ? AND ?",
+            ROW_MAPPER, accountId, Timestamp.valueOf(startDate), Timestamp.valueOf(endDate),
+            accountId, accountId, Timestamp.valueOf(startDate), Timestamp.valueOf(endDate));
+    }
+
+    // Point reads behind the hot table: archived rows are terminal and never change again
+
+    public Optional<Transaction> findArchivedById(Long id) {
+        return first(jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM transactions_archive WHERE id = ?", ROW_MAPPER, id));
+    }
+
+    public Optional<Transaction> findArchivedByReference(String reference) {
+        return first(jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM transactions_archive WHERE transaction_reference = ?", ROW_MAPPER, reference));
+    }
+
+    public Optional<Transaction> findArchivedByIdempotencyKey(Long userId, String key) {
+        return first(jdbcTemplate.query(
+            "SELECT " + prefixed("a") + " FROM transaction_idempotency_keys k " +
+            "JOIN transactions_archive a ON a.transaction_reference = k.transaction_reference " +
+            "WHERE k.user_id = ? AND k.idempotency_key = ?", ROW_MAPPER, userId, key));
+    }
+
+    public List<TransactionTotals> getArchivedTotalsByUserId(Long userId) {
+        return jdbcTemplate.query(
+            "SELECT transaction_status, transaction_type, COUNT(*), SUM(amount) FROM transactions_archive " +
+            "WHERE user_id = ? GROUP BY transaction_status, transaction_type",
+            (rs, rowNum) -> new TransactionTotals(TransactionStatus.valueOf(rs.getString(1)),
+                                                  TransactionType.valueOf(rs.getString(2)),
+                                                  rs.getLong(3), rs.getBigDecimal(4)),
+            userId);
+    }
+
+    private static Optional<Transaction> first(List<Transaction> transactions) {
+        return transactions.stream().findFirst();
+    }
+
+    private static String prefixed(String alias) {
+        return alias + "." + COLUMNS.replace(", ", ", " + alias + ".");
+    }
+
+    // Names are built from a YearMonth only, never from input, so they are safe to inline into DDL
+    private static String partitionName(YearMonth month) {
+        return "transactions_" + month.format(PARTITION_MONTH);
+    }
+
+    private static Optional<YearMonth> monthOf(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+    }
+}
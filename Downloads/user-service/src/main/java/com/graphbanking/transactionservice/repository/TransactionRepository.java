@@ -1,9 +1,12 @@
 package com.graphbanking.transactionservice.repository;
 
+import com.graphbanking.transactionservice.dto.TransactionTotals;
 import com.graphbanking.transactionservice.model.Transaction;
 import com.graphbanking.transactionservice.model.TransactionStatus;
 import com.graphbanking.transactionservice.model.TransactionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,6 +20,12 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     Optional<Transaction> findByTransactionReference(String transactionReference);
     
+    @Query(value = "SELECT t.* FROM transactions t JOIN transaction_idempotency_keys k " +
+                   "ON k.transaction_reference = t.transaction_reference " +
+                   "WHERE k.user_id = :userId AND k.idempotency_key = :key",
+           nativeQuery = true)
+    Optional<Transaction> findByIdempotencyKey(@Param("userId") Long userId, @Param("key") String key);
+    
     List<Transaction> findByUserId(Long userId);
     
     List<Transaction> findByUserIdAndTransactionStatus(Long userId, TransactionStatus status);
@@ -27,20 +36,67 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     List<Transaction> findByToAccountId(Long toAccountId);
     
-    List<Transaction> findByFromAccountIdOrToAccountId(Long fromAccountId, Long toAccountId);
-    
     List<Transaction> findByTransactionStatus(TransactionStatus status);
     
-    List<Transaction> findByTransactionType(TransactionType type);
-    
-    boolean existsByTransactionReference(String transactionReference);
+    long countByTransactionStatus(TransactionStatus status);
+    
+    // Work queue claims: rows locked by another processor are skipped instead of waited on
+    @Query(value = "SELECT t.id FROM transactions t WHERE t.transaction_status = 'PENDING' " +
+                   "ORDER BY t.created_at, t.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> claimPendingIds(@Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE Transaction t SET t.transactionStatus = :processing, t.claimedAt = :now, t.updatedAt = :now " +
+           "WHERE t.id IN :ids")
+    int markClaimed(@Param("ids") List<Long> ids, 
+                    @Param("processing") TransactionStatus processing, 
+                    @Param("now") LocalDateTime now);
+    
+    // Compare-and-set: moves the row only if it is still in the expected status, so a concurrent
+    // change makes this return 0 instead of being overwritten
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Transaction t SET t.transactionStatus = :next, t.updatedAt = :now, " +
+           "t.failureReason = COALESCE(:failureReason, t.failureReason), " +
+           "t.processedAt = COALESCE(:processedAt, t.processedAt), t.claimedAt = NULL " +
+           "WHERE t.id = :id AND t.transactionStatus = :expected")
+    int compareAndSetStatus(@Param("id") Long id, 
+                            @Param("expected") TransactionStatus expected, 
+                            @Param("next") TransactionStatus next, 
+                            @Param("failureReason") String failureReason, 
+                            @Param("processedAt") LocalDateTime processedAt, 
+                            @Param("now") LocalDateTime now);
+    
+    // Rows moved to PROCESSING by hand have no claim and are never picked up here
+    @Query("SELECT t FROM Transaction t WHERE t.transactionStatus = :processing AND t.claimedAt < :cutoff")
+    List<Transaction> findStaleClaims(@Param("processing") TransactionStatus processing, 
+                                      @Param("cutoff") LocalDateTime cutoff);
     
     @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.createdAt BETWEEN :startDate AND :endDate")
     List<Transaction> findByUserIdAndDateRange(@Param("userId") Long userId, 
                                               @Param("startDate") LocalDateTime startDate, 
                                               @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT t FROM Transaction t WHERE (t.fromAccountId = :accountId OR t.toAccountId = :accountId) AND t.createdAt BETWEEN :startDate AND :endDate")
+    // Account queries are a UNION ALL of a debit branch and a credit branch so that each side is served by
+    // its own (account, created_at) index; the credit branch skips rows the debit branch already returned
+    @Query(value = "SELECT a.* FROM (" +
+                   "SELECT t.* FROM transactions t WHERE t.from_account_id = :accountId " +
+                   "UNION ALL " +
+                   "SELECT t.* FROM transactions t WHERE t.to_account_id = :accountId " +
+                   "AND (t.from_account_id IS NULL OR t.from_account_id <> :accountId)" +
+                   ") a ORDER BY a.created_at DESC, a.id DESC",
+           nativeQuery = true)
+    List<Transaction> findByAccountId(@Param("accountId") Long accountId);
+    
+    @Query(value = "SELECT a.* FROM (" +
+                   "SELECT t.* FROM transactions t WHERE t.from_account_id = :accountId " +
+                   "AND t.created_at BETWEEN :startDate AND :endDate " +
+                   "UNION ALL " +
+                   "SELECT t.* FROM transactions t WHERE t.to_account_id = :accountId " +
+                   "AND (t.from_account_id IS NULL OR t.from_account_id <> :accountId) " +
+                   "AND t.created_at BETWEEN :startDate AND :endDate" +
+                   ") a ORDER BY a.created_at DESC, a.id DESC",
+           nativeQuery = true)
     List<Transaction> findByAccountIdAndDateRange(@Param("accountId") Long accountId, 
                                                  @Param("startDate") LocalDateTime startDate, 
                                                  @Param("endDate") LocalDateTime endDate);
@@ -48,6 +104,10 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.transactionStatus = :status")
     long countByUserIdAndStatus(@Param("userId") Long userId, @Param("status") TransactionStatus status);
     
+    @Query("SELECT new com.graphbanking.transactionservice.dto.TransactionTotals(t.transactionStatus, t.transactionType, COUNT(t), SUM(t.amount)) " +
+           "FROM Transaction t WHERE t.userId = :userId GROUP BY t.transactionStatus, t.transactionType")
+    List<TransactionTotals> getTotalsByUserId(@Param("userId") Long userId);
+    
     @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.userId = :userId AND t.transactionStatus = 'COMPLETED' AND t.transactionType = :type")
     BigDecimal getTotalAmountByUserIdAndType(@Param("userId") Long userId, @Param("type") TransactionType type);
     
@@ -59,4 +119,71 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     @Query("SELECT t FROM Transaction t WHERE t.transactionStatus = 'PENDING' AND t.createdAt < :cutoffTime")
     List<Transaction> findStaleTransactions(@Param("cutoffTime") LocalDateTime cutoffTime);
+    
+    // Keyset (seek) pages ordered by (createdAt, id) descending; the *Before queries continue after a cursor row
+    List<Transaction> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageBefore(@Param("createdAt") LocalDateTime createdAt, 
+                                     @Param("id") Long id, 
+                                     Pageable pageable);
+    
+    List<Transaction> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageByUserIdBefore(@Param("userId") Long userId, 
+                                             @Param("createdAt") LocalDateTime createdAt, 
+                                             @Param("id") Long id, 
+                                             Pageable pageable);
+    
+    List<Transaction> findByTransactionStatusOrderByCreatedAtDescIdDesc(TransactionStatus status, Pageable pageable);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.transactionStatus = :status " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageByStatusBefore(@Param("status") TransactionStatus status, 
+                                             @Param("createdAt") LocalDateTime createdAt, 
+                                             @Param("id") Long id, 
+                                             Pageable pageable);
+    
+    List<Transaction> findByTransactionTypeOrderByCreatedAtDescIdDesc(TransactionType type, Pageable pageable);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.transactionType = :type " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageByTypeBefore(@Param("type") TransactionType type, 
+                                           @Param("createdAt") LocalDateTime createdAt, 
+                                           @Param("id") Long id, 
+                                           Pageable pageable);
+    
+    // Each branch is limited on its own index before the merge, so a page never reads more than 2 * limit rows
+    @Query(value = "SELECT a.* FROM (" +
+                   "(SELECT t.* FROM transactions t WHERE t.from_account_id = :accountId " +
+                   "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit) " +
+                   "UNION ALL " +
+                   "(SELECT t.* FROM transactions t WHERE t.to_account_id = :accountId " +
+                   "AND (t.from_account_id IS NULL OR t.from_account_id <> :accountId) " +
+                   "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit)" +
+                   ") a ORDER BY a.created_at DESC, a.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<Transaction> findPageByAccountId(@Param("accountId") Long accountId, @Param("limit") int limit);
+    
+    @Query(value = "SELECT a.* FROM (" +
+                   "(SELECT t.* FROM transactions t WHERE t.from_account_id = :accountId " +
+                   "AND t.created_at <= :createdAt AND (t.created_at < :createdAt OR t.id < :id) " +
+                   "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit) " +
+                   "UNION ALL " +
+                   "(SELECT t.* FROM transactions t WHERE t.to_account_id = :accountId " +
+                   "AND (t.from_account_id IS NULL OR t.from_account_id <> :accountId) " +
+                   "AND t.created_at <= :createdAt AND (t.created_at < :createdAt OR t.id < :id) " +
+                   "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit)" +
+                   ") a ORDER BY a.created_at DESC, a.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<Transaction> findPageByAccountIdBefore(@Param("accountId") Long accountId, 
+                                                @Param("createdAt") LocalDateTime createdAt, 
+                                                @Param("id") Long id, 
+                                                @Param("limit") int limit);
 } 
\ No newline at end of file
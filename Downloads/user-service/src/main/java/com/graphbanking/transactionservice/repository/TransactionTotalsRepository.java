@@ -0,0 +1,183 @@
+package com.graphbanking.transactionservice.repository;
+
+import com.graphbanking.transactionservice.model.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Plain JDBC access to the running totals tables: increments are single upsert statements so
+// concurrent status changes on the same account never lose an update
+@Repository
+public class TransactionTotalsRepository {
+
+    private static final String POSTGRES_ACCOUNT_UPSERT =
+        "INSERT INTO account_transaction_totals (account_id, total_debits, total_credits, updated_at) VALUES (?, ?, ?, ?) " +
+        "ON CONFLICT (account_id) DO UPDATE SET " +
+        "total_debits = account_transaction_totals.total_debits + EXCLUDED.total_debits, " +
+        "total_credits = account_transaction_totals.total_credits + EXCLUDED.total_credits, " +
+        "updated_at = EXCLUDED.updated_at";
+
+    private static final String POSTGRES_USER_UPSERT =
+        "INSERT INTO user_transaction_totals (user_id, transaction_type, total_amount, updated_at) VALUES (?, ?, ?, ?) " +
+        "ON CONFLICT (user_id, transaction_type) DO UPDATE SET " +
+        "total_amount = user_transaction_totals.total_amount + EXCLUDED.total_amount, " +
+        "updated_at = EXCLUDED.updated_at";
+
+    private static final String MERGE_ACCOUNT_UPSERT =
+        "MERGE INTO account_transaction_totals a " +
+        "USING (SELECT CAST(? AS BIGINT) AS account_id, CAST(? AS NUMERIC(19, 2)) AS debit, " +
+        "CAST(? AS NUMERIC(19, 2)) AS credit, CAST(? AS TIMESTAMP) AS updated_at) d " +
+        "ON a.account_id = d.account_id " +
+        "WHEN MATCHED THEN UPDATE SET total_debits = a.total_debits + d.debit, " +
+        "total_credits = a.total_credits + d.credit, updated_at = d.updated_at " +
+        "WHEN NOT MATCHED THEN INSERT (account_id, total_debits, total_credits, updated_at) " +
+        "VALUES (d.account_id, d.debit, d.credit, d.updated_at)";
+
+    private static final String MERGE_USER_UPSERT =
+        "MERGE INTO user_transaction_totals u " +
+        "USING (SELECT CAST(? AS BIGINT) AS user_id, CAST(? AS VARCHAR(32)) AS transaction_type, " +
+        "CAST(? AS NUMERIC(19, 2)) AS amount, CAST(? AS TIMESTAMP) AS updated_at) d " +
+        "ON u.user_id = d.user_id AND u.transaction_type = d.transaction_type " +
+        "WHEN MATCHED THEN UPDATE SET total_amount = u.total_amount + d.amount, updated_at = d.updated_at " +
+        "WHEN NOT MATCHED THEN INSERT (user_id, transaction_type, total_amount, updated_at) " +
+        "VALUES (d.user_id, d.transaction_type, d.amount, d.updated_at)";
+
+    // Archived months are part of every balance, so recomputing reads both tiers
+    private static final String ALL_COMPLETED =
+        "(SELECT user_id, from_account_id, to_account_id, transaction_type, amount FROM transactions " +
+        "WHERE transaction_status = 'COMPLETED' " +
+        "UNION ALL " +
+        "SELECT user_id, from_account_id, to_account_id, transaction_type, amount FROM transactions_archive " +
+        "WHERE transaction_status = 'COMPLETED') t";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    @Autowired
+    public TransactionTotalsRepository(JdbcTemplate jdbcTemplate) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        String url = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), DatabaseMetaData::getURL);
+        this.postgres = DatabaseDriver.fromJdbcUrl(url) == DatabaseDriver.POSTGRESQL;
+    }
+
+    public void addToAccount(Long accountId, BigDecimal debit, BigDecimal credit) {
+        jdbcTemplate.update(postgres ? POSTGRES_ACCOUNT_UPSERT : MERGE_ACCOUNT_UPSERT,
+                            accountId, debit, credit, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public void addToUser(Long userId, TransactionType type, BigDecimal amount) {
+        jdbcTemplate.update(postgres ? POSTGRES_USER_UPSERT : MERGE_USER_UPSERT,
+                            userId, type.name(), amount, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public BigDecimal getTotalDebits(Long accountId) {
+        return single("SELECT total_debits FROM account_transaction_totals WHERE account_id = ?", accountId);
+    }
+
+    public BigDecimal getTotalCredits(Long accountId) {
+        return single("SELECT total_credits FROM account_transaction_totals WHERE account_id = ?", accountId);
+    }
+
+    public BigDecimal getTotalAmount(Long userId, TransactionType type) {
+        return single("SELECT total_amount FROM user_transaction_totals WHERE user_id = ? AND transaction_type = ?",
+                      userId, type.name());
+    }
+
+    // Reconciliation support: the database compares the maintained totals with totals recomputed
+    // from transactions and transactions_archive and returns only the rows that differ, with the
+    // value they should have. Missing maintained rows count as zero.
+
+    public Map<Long, AccountTotals> findAccountTotalsDrift() {
+        Map<Long, AccountTotals> drift = new HashMap<>();
+        jdbcTemplate.query(
+            "WITH actual AS (" +
+            "SELECT e.account_id, SUM(e.debit) AS debits, SUM(e.credit) AS credits FROM (" +
+            "SELECT from_account_id AS account_id, amount AS debit, 0 AS credit FROM " + ALL_COMPLETED + " " +
+            "WHERE from_account_id IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT to_account_id AS account_id, 0 AS debit, amount AS credit FROM " + ALL_COMPLETED + " " +
+            "WHERE to_account_id IS NOT NULL" +
+            ") e GROUP BY e.account_id) " +
+            "SELECT a.account_id, a.debits, a.credits FROM actual a " +
+            "LEFT JOIN account_transaction_totals m ON m.account_id = a.account_id " +
+            "WHERE (m.account_id IS NULL AND (a.debits <> 0 OR a.credits <> 0)) " +
+            "OR m.total_debits <> a.debits OR m.total_credits <> a.credits " +
+            "UNION ALL " +
+            "SELECT m.account_id, 0, 0 FROM account_transaction_totals m " +
+            "WHERE (m.total_debits <> 0 OR m.total_credits <> 0) " +
+            "AND NOT EXISTS (SELECT 1 FROM actual a WHERE a.account_id = m.account_id)",
+            rs -> { drift.put(rs.getLong(1), new AccountTotals(rs.getBigDecimal(2), rs.getBigDecimal(3))); });
+        return drift;
+    }
+
+    public Map<Long, Map<TransactionType, BigDecimal>> findUserTotalsDrift() {
+        Map<Long, Map<TransactionType, BigDecimal>> drift = new HashMap<>();
+        jdbcTemplate.query(
+            "WITH actual AS (" +
+            "SELECT user_id, transaction_type, SUM(amount) AS total FROM " + ALL_COMPLETED + " " +
+            "GROUP BY user_id, transaction_type) " +
+            "SELECT a.user_id, a.transaction_type, a.total FROM actual a " +
+            "LEFT JOIN user_transaction_totals m ON m.user_id = a.user_id AND m.transaction_type = a.transaction_type " +
+            "WHERE (m.user_id IS NULL AND a.total <> 0) OR m.total_amount <> a.total " +
+            "UNION ALL " +
+            "SELECT m.user_id, m.transaction_type, 0 FROM user_transaction_totals m " +
+            "WHERE m.total_amount <> 0 AND NOT EXISTS (" +
+            "SELECT 1 FROM actual a WHERE a.user_id = m.user_id AND a.transaction_type = m.transaction_type)",
+            rs -> { putUserTotal(drift, rs.getLong(1), rs.getString(2), rs.getBigDecimal(3)); });
+        return drift;
+    }
+
+    public void setAccountTotals(Long accountId, AccountTotals accountTotals) {
+        int updated = jdbcTemplate.update(
+            "UPDATE account_transaction_totals SET total_debits = ?, total_credits = ?, updated_at = ? WHERE account_id = ?",
+            accountTotals.getDebits(), accountTotals.getCredits(), Timestamp.valueOf(LocalDateTime.now()), accountId);
+        if (updated == 0) {
+            addToAccount(accountId, accountTotals.getDebits(), accountTotals.getCredits());
+        }
+    }
+
+    public void setUserTotal(Long userId, TransactionType type, BigDecimal amount) {
+        int updated = jdbcTemplate.update(
+            "UPDATE user_transaction_totals SET total_amount = ?, updated_at = ? WHERE user_id = ? AND transaction_type = ?",
+            amount, Timestamp.valueOf(LocalDateTime.now()), userId, type.name());
+        if (updated == 0) {
+            addToUser(userId, type, amount);
+        }
+    }
+
+    private static void putUserTotal(Map<Long, Map<TransactionType, BigDecimal>> totals,
+                                     Long userId, String type, BigDecimal amount) {
+        totals.computeIfAbsent(userId, id -> new EnumMap<>(TransactionType.class))
+              .put(TransactionType.valueOf(type), amount);
+    }
+
+    private BigDecimal single(String sql, Object... args) {
+        List<BigDecimal> values = jdbcTemplate.queryForList(sql, BigDecimal.class, args);
+        return values.isEmpty() || values.get(0) == null ? BigDecimal.ZERO : values.get(0);
+    }
+
+    public static class AccountTotals {
+        private final BigDecimal debits;
+        private final BigDecimal credits;
+
+        public AccountTotals(BigDecimal debits, BigDecimal credits) {
+            this.debits = debits != null ? debits : BigDecimal.ZERO;
+            this.credits = credits != null ? credits : BigDecimal.ZERO;
+        }
+
+        public BigDecimal getDebits() { return debits; }
+        public BigDecimal getCredits() { return credits; }
+    }
+}
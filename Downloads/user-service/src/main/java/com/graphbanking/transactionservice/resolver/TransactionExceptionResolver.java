@@ -0,0 +1,33 @@
+package com.graphbanking.transactionservice.resolver;
+
+import com.graphbanking.transactionservice.service.TransactionStatusConflictException;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Reports refused status changes as client errors with the statuses involved, so callers can
+// re-read and retry instead of seeing an opaque INTERNAL_ERROR
+@Component
+public class TransactionExceptionResolver extends DataFetcherExceptionResolverAdapter {
+    
+    @Override
+    protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        if (ex instanceof TransactionStatusConflictException conflict) {
+            return GraphqlErrorBuilder.newError(env)
+                .errorType(ErrorType.BAD_REQUEST)
+                .message(conflict.getMessage())
+                .extensions(Map.of(
+                    "code", "TRANSACTION_STATUS_CONFLICT",
+                    "transactionId", conflict.getTransactionId(),
+                    "currentStatus", conflict.getCurrentStatus().name(),
+                    "requestedStatus", conflict.getRequestedStatus().name()))
+                .build();
+        }
+        return null;
+    }
+}
@@ -1,20 +1,34 @@
 package com.graphbanking.transactionservice.resolver;
 
+import com.graphbanking.transactionservice.client.UserServiceClient;
+import com.graphbanking.transactionservice.dto.TransactionBatchResult;
+import com.graphbanking.transactionservice.dto.TransactionConnection;
+import com.graphbanking.transactionservice.dto.UserSummary;
+import com.graphbanking.transactionservice.dto.UserTransactionSummary;
+import com.graphbanking.transactionservice.event.TransactionStatusBroadcaster;
+import com.graphbanking.transactionservice.event.TransactionStatusChangedEvent;
 import com.graphbanking.transactionservice.model.Transaction;
 import com.graphbanking.transactionservice.model.TransactionStatus;
 import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.service.TransactionImportService;
 import com.graphbanking.transactionservice.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Controller
 public class TransactionResolver {
@@ -22,10 +36,19 @@ public class TransactionResolver {
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private TransactionImportService transactionImportService;
+    
+    @Autowired
+    private UserServiceClient userServiceClient;
+    
+    @Autowired
+    private TransactionStatusBroadcaster statusBroadcaster;
+    
     // Query Mappings
     @QueryMapping
-    public List<Transaction> transactions() {
-        return transactionService.getAllTransactions();
+    public TransactionConnection transactions(@Argument Integer first, @Argument String after) {
+        return transactionService.getTransactions(first, after);
     }
     
     @QueryMapping
@@ -39,8 +62,8 @@ public class TransactionResolver {
     }
     
     @QueryMapping
-    public List<Transaction> transactionsByUserId(@Argument Long userId) {
-        return transactionService.getTransactionsByUserId(userId);
+    public TransactionConnection transactionsByUserId(@Argument Long userId, @Argument Integer first, @Argument String after) {
+        return transactionService.getTransactionsByUserId(userId, first, after);
     }
     
     @QueryMapping
@@ -54,18 +77,18 @@ public class TransactionResolver {
     }
     
     @QueryMapping
-    public List<Transaction> transactionsByAccountId(@Argument Long accountId) {
-        return transactionService.getTransactionsByAccountId(accountId);
+    public TransactionConnection transactionsByAccountId(@Argument Long accountId, @Argument Integer first, @Argument String after) {
+        return transactionService.getTransactionsByAccountId(accountId, first, after);
     }
     
     @QueryMapping
-    public List<Transaction> transactionsByStatus(@Argument TransactionStatus status) {
-        return transactionService.getTransactionsByStatus(status);
+    public TransactionConnection transactionsByStatus(@Argument TransactionStatus status, @Argument Integer first, @Argument String after) {
+        return transactionService.getTransactionsByStatus(status, first, after);
     }
     
     @QueryMapping
-    public List<Transaction> transactionsByType(@Argument TransactionType type) {
-        return transactionService.getTransactionsByType(type);
+    public TransactionConnection transactionsByType(@Argument TransactionType type, @Argument Integer first, @Argument String after) {
+        return transactionService.getTransactionsByType(type, first, after);
     }
     
     @QueryMapping
@@ -86,17 +109,32 @@ public class TransactionResolver {
     
     @QueryMapping
     public UserTransactionSummary userTransactionSummary(@Argument Long userId) {
-        List<Transaction> allTransactions = transactionService.getTransactionsByUserId(userId);
-        long completedCount = transactionService.getTransactionCount(userId, TransactionStatus.COMPLETED);
-        long pendingCount = transactionService.getTransactionCount(userId, TransactionStatus.PENDING);
-        long failedCount = transactionService.getTransactionCount(userId, TransactionStatus.FAILED);
-        
-        BigDecimal totalDeposits = transactionService.getTotalAmountByUserAndType(userId, TransactionType.DEPOSIT);
-        BigDecimal totalWithdrawals = transactionService.getTotalAmountByUserAndType(userId, TransactionType.WITHDRAWAL);
-        BigDecimal totalTransfers = transactionService.getTotalAmountByUserAndType(userId, TransactionType.TRANSFER);
+        return transactionService.getUserTransactionSummary(userId);
+    }
+    
+    // Only invoked when the client selects UserTransactionSummary.transactions
+    @SchemaMapping(typeName = "UserTransactionSummary", field = "transactions")
+    public TransactionConnection userTransactionSummaryTransactions(UserTransactionSummary summary, 
+                                                                    @Argument Integer first, 
+                                                                    @Argument String after) {
+        return transactionService.getTransactionsByUserId(summary.getUserId(), first, after);
+    }
+    
+    // Called once per request with every Transaction whose user was selected, so a page of
+    // transactions costs one user service call rather than one per row
+    @BatchMapping(typeName = "Transaction", field = "user")
+    public Map<Transaction, UserSummary> user(List<Transaction> transactions) {
+        Map<Long, UserSummary> users = userServiceClient.getUsersByIds(
+            transactions.stream().map(Transaction::getUserId).collect(Collectors.toSet()));
         
-        return new UserTransactionSummary(userId, completedCount, pendingCount, failedCount, 
-                                        totalDeposits, totalWithdrawals, totalTransfers, allTransactions);
+        Map<Transaction, UserSummary> result = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            UserSummary user = users.get(transaction.getUserId());
+            if (user != null) {
+                result.put(transaction, user);
+            }
+        }
+        return result;
     }
     
     @QueryMapping
@@ -112,8 +150,14 @@ public class TransactionResolver {
         BigDecimal amount = new BigDecimal(input.get("amount").toString());
         String currency = (String) input.get("currency");
         String description = (String) input.get("description");
+        String idempotencyKey = (String) input.get("idempotencyKey");
         
-        return transactionService.createTransaction(userId, type, amount, currency, description);
+        return transactionService.createTransaction(userId, type, amount, currency, description, idempotencyKey);
+    }
+    
+    @MutationMapping
+    public TransactionBatchResult createTransactionsBatch(@Argument List<Map<String, Object>> input) {
+        return transactionImportService.importRows(input);
     }
     
     @MutationMapping
@@ -124,8 +168,9 @@ public class TransactionResolver {
         BigDecimal amount = new BigDecimal(input.get("amount").toString());
         String currency = (String) input.get("currency");
         String description = (String) input.get("description");
+        String idempotencyKey = (String) input.get("idempotencyKey");
         
-        return transactionService.createTransfer(userId, fromAccountId, toAccountId, amount, currency, description);
+        return transactionService.createTransfer(userId, fromAccountId, toAccountId, amount, currency, description, idempotencyKey);
     }
     
     @MutationMapping
@@ -172,38 +217,9 @@ public class TransactionResolver {
         }
     }
     
-    // Helper class for UserTransactionSummary
-    public static class UserTransactionSummary {
-        private Long userId;
-        private long completedCount;
-        private long pendingCount;
-        private long failedCount;
-        private BigDecimal totalDeposits;
-        private BigDecimal totalWithdrawals;
-        private BigDecimal totalTransfers;
-        private List<Transaction> transactions;
-        
-        public UserTransactionSummary(Long userId, long completedCount, long pendingCount, long failedCount,
-                                    BigDecimal totalDeposits, BigDecimal totalWithdrawals, BigDecimal totalTransfers,
-                                    List<Transaction> transactions) {
-            this.userId = userId;
-            this.completedCount = completedCount;
-            this.pendingCount = pendingCount;
-            this.failedCount = failedCount;
-            this.totalDeposits = totalDeposits;
-            this.totalWithdrawals = totalWithdrawals;
-            this.totalTransfers = totalTransfers;
-            this.transactions = transactions;
-        }
-        
-        // Getters
-        public Long getUserId() { return userId; }
-        public long getCompletedCount() { return completedCount; }
-        public long getPendingCount() { return pendingCount; }
-        public long getFailedCount() { return failedCount; }
-        public BigDecimal getTotalDeposits() { return totalDeposits; }
-        public BigDecimal getTotalWithdrawals() { return totalWithdrawals; }
-        public BigDecimal getTotalTransfers() { return totalTransfers; }
-        public List<Transaction> getTransactions() { return transactions; }
-    }
-} 
\ No newline at end of file
+    // Subscription Mappings
+    @SubscriptionMapping
+    public Flux<TransactionStatusChangedEvent> transactionStatusChanged(@Argument Long userId, @Argument Long transactionId) {
+        return statusBroadcaster.subscribe(userId, transactionId);
+    }
+}
\ No newline at end of file
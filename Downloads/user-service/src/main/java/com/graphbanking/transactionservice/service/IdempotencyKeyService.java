@@ -0,0 +1,91 @@
+package com.graphbanking.transactionservice.service;
+
+import com.graphbanking.transactionservice.cache.RecentIdempotencyKeyCache;
+import com.graphbanking.transactionservice.cache.TerminalTransactionCache;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.repository.IdempotencyKeyRepository;
+import com.graphbanking.transactionservice.repository.TransactionPartitionRepository;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Resolves idempotency keys on create mutations. A retry is answered with one lookup: by reference
+// when the key is in the recent-keys cache (often straight from the terminal cache), otherwise by a
+// single join from the key table to the transaction. Transactions moved to the archive are found
+// there, so a key still resolves after its month leaves the hot table.
+@Service
+@Transactional
+public class IdempotencyKeyService {
+    
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyService.class);
+    private static final int MAX_KEY_LENGTH = 128;
+    
+    @Autowired
+    private IdempotencyKeyRepository keyRepository;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private TransactionPartitionRepository partitionRepository;
+    
+    @Autowired
+    private RecentIdempotencyKeyCache recentKeys;
+    
+    @Autowired
+    private TerminalTransactionCache terminalCache;
+    
+    @Value("${transaction.idempotency.retention-hours:168}")
+    private int retentionHours;
+    
+    // Blank keys mean no key was given
+    public String normalize(String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        return key;
+    }
+    
+    public Optional<Transaction> findExisting(Long userId, String key) {
+        Optional<String> reference = recentKeys.get(userId, key);
+        if (reference.isPresent()) {
+            return terminalCache.getByReference(reference.get(),
+                () -> transactionRepository.findByTransactionReference(reference.get())
+                    .or(() -> partitionRepository.findArchivedByReference(reference.get())));
+        }
+        Optional<Transaction> existing = transactionRepository.findByIdempotencyKey(userId, key)
+            .or(() -> partitionRepository.findArchivedByIdempotencyKey(userId, key));
+        existing.ifPresent(transaction -> recentKeys.putAfterCommit(userId, key, transaction.getTransactionReference()));
+        return existing;
+    }
+    
+    // Reserves the key for a transaction about to be created with this reference; false means
+    // another request holds it, in which case that request's transaction is the answer
+    public boolean claim(Long userId, String key, String reference) {
+        if (!keyRepository.claim(userId, key, reference)) {
+            return false;
+        }
+        recentKeys.putAfterCommit(userId, key, reference);
+        return true;
+    }
+    
+    // Retries arrive within minutes; keys only need to outlive any sensible client retry window
+    @Scheduled(cron = "${transaction.idempotency.purge-cron:0 45 3 * * *}")
+    public void purge() {
+        int deleted = keyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Purged {} idempotency keys older than {} hours", deleted, retentionHours);
+        }
+    }
+}
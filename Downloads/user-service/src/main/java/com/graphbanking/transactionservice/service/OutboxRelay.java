@@ -0,0 +1,111 @@
+package com.graphbanking.transactionservice.service;
+
+import com.graphbanking.transactionservice.event.OutboxEvent;
+import com.graphbanking.transactionservice.event.TransactionEventBroker;
+import com.graphbanking.transactionservice.repository.TransactionOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Moves committed outbox rows to the broker. Each batch is positioned, published and marked in one
+// short transaction under the position lock, so stream positions follow commit order even though ids
+// do not; if the broker fails the batch stays unpublished and is sent again on the next run.
+// Published rows are kept for the retention window so consumers can replay.
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private TransactionOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionEventBroker broker;
+
+    @Value("${transaction.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${transaction.outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${transaction.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter published;
+    private final Counter failures;
+
+    public OutboxRelay(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.published = Counter.builder("transactions.outbox.published").register(meterRegistry);
+        this.failures = Counter.builder("transactions.outbox.failures").register(meterRegistry);
+        Gauge.builder("transactions.outbox.backlog", backlog, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.outbox.relay.interval-ms:500}")
+    public void scheduledRelay() {
+        if (enabled) {
+            relay();
+        }
+    }
+
+    // Publishes until the outbox is drained or the broker fails; returns the number of events sent
+    public int relay() {
+        int total = 0;
+        try {
+            while (true) {
+                Integer sent = transactionTemplate.execute(status -> publishBatch());
+                if (sent == null || sent == 0) {
+                    break;
+                }
+                total += sent;
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Outbox relay stopped after {} events, will retry", total, e);
+        }
+        backlog.set(outboxRepository.countUnpublished());
+        return total;
+    }
+
+    @Scheduled(cron = "${transaction.outbox.purge-cron:0 15 3 * * *}")
+    public void purge() {
+        int deleted = transactionTemplate.execute(status ->
+            outboxRepository.deletePublishedBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0) {
+            log.info("Purged {} published outbox events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    private int publishBatch() {
+        long position = outboxRepository.lockLastPosition();
+        List<OutboxEvent> events = new ArrayList<>();
+        for (OutboxEvent event : outboxRepository.lockUnpublished(batchSize)) {
+            events.add(event.withPosition(++position));
+        }
+        if (events.isEmpty()) {
+            return 0;
+        }
+        broker.publish(events);
+        outboxRepository.markPublished(events, LocalDateTime.now());
+        outboxRepository.updateLastPosition(position);
+        published.increment(events.size());
+        return events.size();
+    }
+}
@@ -0,0 +1,190 @@
+package com.graphbanking.transactionservice.service;
+
+import com.graphbanking.transactionservice.event.TransactionStatusChangedEvent;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Drains the PENDING queue in bounded batches. A batch is claimed (moved to PROCESSING) in one short
+// transaction using FOR UPDATE SKIP LOCKED, then settled in a second one, so several instances and
+// workers can drain the table in parallel without ever picking up the same row.
+@Component
+public class PendingTransactionProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingTransactionProcessor.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionStateMachine stateMachine;
+
+    @Autowired
+    @Qualifier("transactionProcessingExecutor")
+    private TaskExecutor executor;
+
+    @Value("${transaction.processing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transaction.processing.batch-size:100}")
+    private int batchSize;
+
+    @Value("${transaction.processing.workers:4}")
+    private int workers;
+
+    @Value("${transaction.processing.claim-timeout-minutes:10}")
+    private int claimTimeoutMinutes;
+
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLong backlog = new AtomicLong();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final Counter completed;
+    private final Counter released;
+    private final Counter conflicts;
+    private final Timer batchTimer;
+
+    public PendingTransactionProcessor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.completed = Counter.builder("transactions.processing.completed").register(meterRegistry);
+        this.released = Counter.builder("transactions.processing.released").register(meterRegistry);
+        this.conflicts = Counter.builder("transactions.processing.conflicts").register(meterRegistry);
+        this.batchTimer = Timer.builder("transactions.processing.batch").register(meterRegistry);
+        Gauge.builder("transactions.processing.backlog", backlog, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.processing.interval-ms:5000}")
+    public void scheduledDrain() {
+        if (enabled) {
+            drain();
+        }
+    }
+
+    // Runs until no PENDING rows are left; returns the number of transactions settled by this call.
+    // Drains are serialized per instance: the pool only has room for one drain's workers, and a
+    // caller arriving mid-drain waits for it and then finds whatever is still left.
+    public int drain() {
+        drainLock.lock();
+        try {
+            List<CompletableFuture<Integer>> running = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                running.add(CompletableFuture.supplyAsync(this::drainLoop, executor));
+            }
+            int processed = running.stream().mapToInt(CompletableFuture::join).sum();
+            refreshBacklog();
+            return processed;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.processing.claim-check-interval-ms:60000}")
+    public void scheduledRelease() {
+        if (enabled) {
+            releaseStaleClaims();
+        }
+    }
+
+    // Claims left in PROCESSING by an instance that died mid-batch go back to the queue. Each row goes
+    // through the state machine, so the release is compare-and-set and reaches the outbox and
+    // subscribers like any other status change.
+    int releaseStaleClaims() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(claimTimeoutMinutes);
+        Integer count = transactionTemplate.execute(status -> {
+            int releasedNow = 0;
+            for (Transaction transaction : transactionRepository.findStaleClaims(TransactionStatus.PROCESSING, cutoff)) {
+                try {
+                    stateMachine.transition(transaction, TransactionStatus.PENDING, null);
+                } catch (TransactionStatusConflictException e) {
+                    conflicts.increment();
+                    continue;
+                }
+                released.increment();
+                releasedNow++;
+            }
+            return releasedNow;
+        });
+        if (count != null && count > 0) {
+            log.warn("Released {} transactions stuck in PROCESSING", count);
+        }
+        refreshBacklog();
+        return count != null ? count : 0;
+    }
+
+    private int drainLoop() {
+        int processed = 0;
+        while (true) {
+            List<Long> claimed = claimBatch();
+            if (claimed.isEmpty()) {
+                return processed;
+            }
+            processed += batchTimer.record(() -> settleBatch(claimed));
+        }
+    }
+
+    List<Long> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = transactionRepository.claimPendingIds(batchSize);
+            if (!ids.isEmpty()) {
+                transactionRepository.markClaimed(ids, TransactionStatus.PROCESSING, LocalDateTime.now());
+                for (Transaction transaction : transactionRepository.findAllById(ids)) {
+                    eventPublisher.publishEvent(new TransactionStatusChangedEvent(transaction, TransactionStatus.PENDING));
+                }
+            }
+            return ids;
+        });
+    }
+
+    // Each row moves out of PROCESSING with a compare-and-set, so a transaction cancelled or
+    // released while the batch was being worked on is left alone rather than overwritten
+    int settleBatch(List<Long> ids) {
+        return transactionTemplate.execute(status -> {
+            int settled = 0;
+            for (Transaction transaction : transactionRepository.findAllById(ids)) {
+                if (transaction.getTransactionStatus() != TransactionStatus.PROCESSING) {
+                    continue;
+                }
+                // Settlement has no external side effects yet, so every row still claimed completes
+                try {
+                    stateMachine.transition(transaction, TransactionStatus.COMPLETED, null);
+                } catch (TransactionStatusConflictException e) {
+                    conflicts.increment();
+                    continue;
+                }
+                completed.increment();
+                settled++;
+            }
+            return settled;
+        });
+    }
+
+    private void refreshBacklog() {
+        backlog.set(transactionRepository.countByTransactionStatus(TransactionStatus.PENDING));
+    }
+}
@@ -0,0 +1,85 @@
+package com.graphbanking.transactionservice.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Snowflake-style references: 41 bits of milliseconds since 2024-01-01, a 10 bit node id and a
+// 12 bit per-millisecond sequence, rendered as 13 Crockford base32 characters after "TXN-".
+// References sort by creation time and are unique across nodes as long as node ids differ, so every
+// instance needs its own transaction.reference.node-id; only the dev and test profiles may leave it
+// unset and fall back to a hash of the host name.
+@Component
+public class SnowflakeTransactionReferenceGenerator implements TransactionReferenceGenerator {
+    
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final String PREFIX = "TXN-";
+    
+    private final long nodeId;
+    
+    // (timestamp << SEQUENCE_BITS | sequence) of the last issued id. A sequence overflow carries into
+    // the timestamp, and a clock moving backwards keeps counting from the last value, so ids stay
+    // strictly increasing without ever blocking a caller.
+    private final AtomicLong lastState = new AtomicLong();
+    
+    @Autowired
+    public SnowflakeTransactionReferenceGenerator(@Value("${transaction.reference.node-id:-1}") long nodeId,
+                                                  Environment environment) {
+        this(nodeId >= 0 ? nodeId : fallbackNodeId(environment));
+    }
+    
+    public SnowflakeTransactionReferenceGenerator(long nodeId) {
+        this.nodeId = nodeId;
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("transaction.reference.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+    }
+    
+    @Override
+    public String nextReference() {
+        long now = System.currentTimeMillis() - EPOCH;
+        long state = lastState.updateAndGet(last -> Math.max(last + 1, now << SEQUENCE_BITS));
+        long timestamp = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        return PREFIX + encode((timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence);
+    }
+    
+    // Fixed width, most significant character first, so string order matches numeric order
+    private static String encode(long value) {
+        char[] chars = new char[13];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+    
+    // Two hosts can hash to the same node id and then issue the same references, which would only
+    // show up later as unique constraint failures; outside dev and test that is refused at startup
+    private static long fallbackNodeId(Environment environment) {
+        if (!environment.acceptsProfiles(Profiles.of("dev", "test"))) {
+            throw new IllegalStateException("transaction.reference.node-id is not set; give every instance its own " +
+                                            "value between 0 and " + MAX_NODE_ID);
+        }
+        return nodeIdFromHostName();
+    }
+    
+    private static long nodeIdFromHostName() {
+        try {
+            return (InetAddress.getLocalHost().getHostName().hashCode() & Integer.MAX_VALUE) % (MAX_NODE_ID + 1);
+        } catch (UnknownHostException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.graphbanking.transactionservice.service;
+
+import com.graphbanking.transactionservice.dto.TransactionBatchResult;
+import com.graphbanking.transactionservice.dto.TransactionRowError;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Bulk creation of transactions from settlement files. Rows are validated up front and written in
+// chunks, one database transaction per chunk, so sequence ids and JDBC batching cut the cost to a few
+// round trips per chunk. If a chunk fails to insert it is retried row by row to pin down the bad rows.
+// Rows carrying an idempotency key skip the chunks and go through TransactionService one at a time,
+// so retrying a batch never duplicates them; a row that was already applied reports as created again.
+@Service
+public class TransactionImportService {
+    
+    private static final Logger log = LoggerFactory.getLogger(TransactionImportService.class);
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private TransactionReferenceGenerator referenceGenerator;
+    
+    @Autowired
+    private TransactionOutbox outbox;
+    
+    @Autowired
+    private TransactionService transactionService;
+    
+    @Autowired
+    private Validator validator;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${transaction.import.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Value("${transaction.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+    
+    @Value("${transaction.import.max-mutation-rows:1000}")
+    private int maxMutationRows;
+    
+    private final TransactionTemplate transactionTemplate;
+    private final Counter created;
+    private final Counter rejected;
+    
+    public TransactionImportService(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.created = Counter.builder("transactions.import.rows").tag("outcome", "created").register(meterRegistry);
+        this.rejected = Counter.builder("transactions.import.rows").tag("outcome", "rejected").register(meterRegistry);
+    }
+    
+    // Entry point for the createTransactionsBatch mutation; larger files go through the streaming endpoint
+    public TransactionBatchResult importRows(List<Map<String, Object>> rows) {
+        if (rows.size() > maxMutationRows) {
+            throw new RuntimeException("A batch may contain at most " + maxMutationRows + " rows");
+        }
+        BatchImport batch = begin();
+        rows.forEach(batch::add);
+        return batch.finish();
+    }
+    
+    public BatchImport begin() {
+        return new BatchImport();
+    }
+    
+    // Rows use the CreateTransactionInput field names: userId, type, amount, currency, description,
+    // idempotencyKey
+    private Transaction toTransaction(Map<String, Object> fields) {
+        Long userId;
+        TransactionType type;
+        BigDecimal amount;
+        try {
+            userId = Long.valueOf(required(fields, "userId"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid userId: " + fields.get("userId"));
+        }
+        try {
+            type = TransactionType.valueOf(required(fields, "type").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid type: " + fields.get("type"));
+        }
+        try {
+            amount = new BigDecimal(required(fields, "amount"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid amount: " + fields.get("amount"));
+        }
+        
+        Transaction transaction = new Transaction(referenceGenerator.nextReference(), userId, type, amount);
+        String currency = optional(fields, "currency");
+        if (currency != null) {
+            transaction.setCurrency(currency);
+        }
+        transaction.setDescription(optional(fields, "description"));
+        
+        Set<ConstraintViolation<Transaction>> violations = validator.validate(transaction);
+        if (!violations.isEmpty()) {
+            throw new RuntimeException(violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; ")));
+        }
+        return transaction;
+    }
+    
+    private static String required(Map<String, Object> fields, String name) {
+        String value = optional(fields, name);
+        if (value == null) {
+            throw new RuntimeException(name + " is required");
+        }
+        return value;
+    }
+    
+    private static String optional(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value == null || value.toString().isBlank()) {
+            return null;
+        }
+        return value.toString().trim();
+    }
+    
+    private void insert(List<Transaction> transactions) {
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionRepository.saveAll(transactions);
+            entityManager.flush();
+            outbox.recordCreated(transactions);
+            // Keep the persistence context from growing with every chunk of a long import
+            entityManager.clear();
+        });
+    }
+    
+    // One import in progress. Not thread safe: feed it from a single thread, then call finish().
+    public class BatchImport {
+        private final List<Transaction> chunk = new ArrayList<>();
+        private final List<Integer> chunkRows = new ArrayList<>();
+        private final List<TransactionRowError> errors = new ArrayList<>();
+        private int row;
+        private int createdRows;
+        private int failedRows;
+        
+        private BatchImport() {
+        }
+        
+        public void add(Map<String, Object> fields) {
+            row++;
+            Transaction transaction;
+            try {
+                transaction = toTransaction(fields);
+            } catch (RuntimeException e) {
+                reject(row, e.getMessage());
+                return;
+            }
+            String idempotencyKey = optional(fields, "idempotencyKey");
+            if (idempotencyKey != null) {
+                createKeyed(transaction, idempotencyKey);
+                return;
+            }
+            chunk.add(transaction);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+        
+        // Advances the row number past a line that holds no record, such as a header or a blank line
+        public void skip() {
+            row++;
+        }
+        
+        // Counts a row the caller could not parse into fields at all
+        public void reject(String message) {
+            row++;
+            reject(row, message);
+        }
+        
+        public TransactionBatchResult finish() {
+            flush();
+            return new TransactionBatchResult(createdRows, failedRows, List.copyOf(errors));
+        }
+        
+        private void createKeyed(Transaction transaction, String idempotencyKey) {
+            try {
+                transactionService.createTransaction(transaction.getUserId(), transaction.getTransactionType(),
+                    transaction.getAmount(), transaction.getCurrency(), transaction.getDescription(), idempotencyKey);
+                createdRows++;
+                created.increment();
+            } catch (RuntimeException e) {
+                reject(row, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+        }
+        
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                insert(chunk);
+                createdRows += chunk.size();
+                created.increment(chunk.size());
+            } catch (RuntimeException e) {
+                log.warn("Inserting a chunk of {} transactions failed, retrying row by row: {}", chunk.size(), e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Transaction transaction = chunk.get(i);
+                    // The failed flush already assigned an id; let the retry allocate a fresh one
+                    transaction.setId(null);
+                    try {
+                        insert(List.of(transaction));
+                        createdRows++;
+                        created.increment();
+                    } catch (RuntimeException rowFailure) {
+                        reject(chunkRows.get(i), NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                    }
+                }
+            }
+            chunk.clear();
+            chunkRows.clear();
+        }
+        
+        private void reject(int rowNumber, String message) {
+            failedRows++;
+            rejected.increment();
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new TransactionRowError(rowNumber, message));
+            }
+        }
+    }
+}
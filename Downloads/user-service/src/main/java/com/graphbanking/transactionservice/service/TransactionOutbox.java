@@ -0,0 +1,78 @@
+package com.graphbanking.transactionservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.transactionservice.event.OutboxEvent;
+import com.graphbanking.transactionservice.event.TransactionStatusChangedEvent;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.repository.TransactionOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Writes every transaction change to transaction_outbox inside the database transaction that
+// made it, so the change stream can never disagree with the transactions table: a rolled back
+// change leaves no event behind and a committed one always has one. OutboxRelay publishes them.
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class TransactionOutbox {
+    
+    private static final int MAX_REPLAY_BATCH = 1000;
+    
+    @Autowired
+    private TransactionOutboxRepository outboxRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // The payload has the same shape as a status change, with no previous status
+    public void recordCreated(Transaction transaction) {
+        outboxRepository.insert(transaction.getId(), OutboxEvent.TRANSACTION_CREATED,
+                                toJson(new TransactionStatusChangedEvent(transaction, null)));
+    }
+    
+    public void recordCreated(List<Transaction> transactions) {
+        outboxRepository.insertAll(
+            transactions.stream().map(Transaction::getId).toList(),
+            OutboxEvent.TRANSACTION_CREATED,
+            transactions.stream().map(transaction -> toJson(new TransactionStatusChangedEvent(transaction, null))).toList());
+    }
+    
+    // Runs synchronously inside the transaction that changed the status
+    @EventListener
+    public void onStatusChanged(TransactionStatusChangedEvent event) {
+        outboxRepository.insert(event.getTransactionId(), OutboxEvent.TRANSACTION_STATUS_CHANGED, toJson(event));
+    }
+    
+    // The payload is the row as it was last seen, so previous and new status are both its final status
+    public void recordDeleted(Transaction transaction) {
+        outboxRepository.insert(transaction.getId(), OutboxEvent.TRANSACTION_DELETED,
+                                toJson(new TransactionStatusChangedEvent(transaction, transaction.getTransactionStatus())));
+    }
+    
+    // Re-reads the relayed stream from a consumer's last seen position, e.g. after a restart or a
+    // missed delivery. Events that are committed but not yet relayed have no position and show up
+    // once the relay has run.
+    @Transactional(readOnly = true)
+    public List<OutboxEvent> replay(long afterPosition, int limit) {
+        return outboxRepository.findAfter(afterPosition, Math.min(Math.max(limit, 1), MAX_REPLAY_BATCH));
+    }
+    
+    // Where a consumer that only wants events from now on starts
+    @Transactional(readOnly = true)
+    public long lastPosition() {
+        return outboxRepository.findLastPosition();
+    }
+    
+    private String toJson(TransactionStatusChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unable to serialize outbox event for transaction " + event.getTransactionId(), e);
+        }
+    }
+}
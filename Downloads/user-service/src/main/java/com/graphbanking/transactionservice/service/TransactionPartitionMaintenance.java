@@ -0,0 +1,97 @@
+package com.graphbanking.transactionservice.service;
+
+import com.graphbanking.transactionservice.repository.TransactionPartitionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+// Keeps the monthly partitions of transactions ahead of the clock and moves months that fall out
+// of the retention window into transactions_archive, one month per transaction. A month that
+// still holds PENDING or PROCESSING rows stays hot until they settle. Does nothing on H2.
+@Component
+public class TransactionPartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionPartitionMaintenance.class);
+
+    @Autowired
+    private TransactionPartitionRepository partitionRepository;
+
+    @Value("${transaction.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${transaction.partitioning.retention-months:24}")
+    private int retentionMonths;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archivedRows;
+
+    public TransactionPartitionMaintenance(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.archivedRows = Counter.builder("transactions.partitions.archived.rows").register(meterRegistry);
+    }
+
+    // Rows created before this instant live in transactions_archive (or are about to move there)
+    public LocalDateTime hotBoundary() {
+        return YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        createUpcomingPartitions();
+    }
+
+    @Scheduled(cron = "${transaction.partitioning.cron:0 0 4 * * *}")
+    public void maintain() {
+        createUpcomingPartitions();
+        archiveExpiredPartitions();
+    }
+
+    public void createUpcomingPartitions() {
+        if (!partitionRepository.isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            transactionTemplate.executeWithoutResult(status -> partitionRepository.createPartition(month));
+        }
+    }
+
+    public void archiveExpiredPartitions() {
+        if (!partitionRepository.isPartitioned()) {
+            return;
+        }
+        YearMonth oldestHot = YearMonth.from(hotBoundary());
+        for (YearMonth month : partitionRepository.findPartitionMonths()) {
+            if (!month.isBefore(oldestHot)) {
+                break;
+            }
+            Integer archived = transactionTemplate.execute(status -> {
+                if (partitionRepository.hasOpenTransactions(month)) {
+                    return null;
+                }
+                return partitionRepository.archivePartition(month);
+            });
+            if (archived == null) {
+                log.warn("Partition for {} still has open transactions, keeping it hot", month);
+                continue;
+            }
+            archivedRows.increment(archived);
+            log.info("Archived {} transactions from {}", archived, month);
+        }
+    }
+}
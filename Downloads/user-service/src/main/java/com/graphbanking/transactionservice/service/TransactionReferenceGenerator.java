@@ -0,0 +1,7 @@
+package com.graphbanking.transactionservice.service;
+
+// Produces transaction references that are unique by construction, so inserts need no existence check
+public interface TransactionReferenceGenerator {
+    
+    String nextReference();
+}
@@ -1,77 +1,159 @@
 package com.graphbanking.transactionservice.service;
 
+import com.graphbanking.transactionservice.cache.TerminalTransactionCache;
+import com.graphbanking.transactionservice.dto.TransactionConnection;
+import com.graphbanking.transactionservice.dto.TransactionCursor;
+import com.graphbanking.transactionservice.dto.TransactionTotals;
+import com.graphbanking.transactionservice.dto.UserTransactionSummary;
 import com.graphbanking.transactionservice.model.Transaction;
 import com.graphbanking.transactionservice.model.TransactionStatus;
 import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.repository.TransactionPartitionRepository;
 import com.graphbanking.transactionservice.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Service
 @Transactional
 public class TransactionService {
     
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    
     @Autowired
     private TransactionRepository transactionRepository;
     
-    public List<Transaction> getAllTransactions() {
-        return transactionRepository.findAll();
+    @Autowired
+    private TransactionTotalsService totalsService;
+    
+    @Autowired
+    private TransactionStateMachine stateMachine;
+    
+    @Autowired
+    private PendingTransactionProcessor pendingTransactionProcessor;
+    
+    @Autowired
+    private TransactionReferenceGenerator referenceGenerator;
+    
+    @Autowired
+    private TerminalTransactionCache terminalCache;
+    
+    @Autowired
+    private TransactionOutbox outbox;
+    
+    @Autowired
+    private IdempotencyKeyService idempotencyKeys;
+    
+    @Autowired
+    private TransactionPartitionRepository partitionRepository;
+    
+    @Autowired
+    private TransactionPartitionMaintenance partitionMaintenance;
+    
+    @Transactional(readOnly = true)
+    public TransactionConnection getTransactions(Integer first, String after) {
+        return page(first, after,
+            pageable -> transactionRepository.findAllByOrderByCreatedAtDescIdDesc(pageable),
+            (cursor, pageable) -> transactionRepository.findPageBefore(cursor.getCreatedAt(), cursor.getId(), pageable));
     }
     
+    @Transactional(readOnly = true)
     public Optional<Transaction> getTransactionById(Long id) {
-        return transactionRepository.findById(id);
+        return terminalCache.getById(id,
+            () -> transactionRepository.findById(id).or(() -> partitionRepository.findArchivedById(id)));
     }
     
+    @Transactional(readOnly = true)
     public Optional<Transaction> getTransactionByReference(String reference) {
-        return transactionRepository.findByTransactionReference(reference);
+        return terminalCache.getByReference(reference,
+            () -> transactionRepository.findByTransactionReference(reference)
+                .or(() -> partitionRepository.findArchivedByReference(reference)));
     }
     
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByUserId(Long userId) {
         return transactionRepository.findByUserId(userId);
     }
     
+    @Transactional(readOnly = true)
+    public TransactionConnection getTransactionsByUserId(Long userId, Integer first, String after) {
+        return page(first, after,
+            pageable -> transactionRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, pageable),
+            (cursor, pageable) -> transactionRepository.findPageByUserIdBefore(userId, cursor.getCreatedAt(), cursor.getId(), pageable));
+    }
+    
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByUserIdAndStatus(Long userId, TransactionStatus status) {
         return transactionRepository.findByUserIdAndTransactionStatus(userId, status);
     }
     
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByUserIdAndType(Long userId, TransactionType type) {
         return transactionRepository.findByUserIdAndTransactionType(userId, type);
     }
     
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByAccountId(Long accountId) {
-        return transactionRepository.findByFromAccountIdOrToAccountId(accountId, accountId);
+        return transactionRepository.findByAccountId(accountId);
+    }
+    
+    @Transactional(readOnly = true)
+    public TransactionConnection getTransactionsByAccountId(Long accountId, Integer first, String after) {
+        return page(first, after,
+            pageable -> transactionRepository.findPageByAccountId(accountId, pageable.getPageSize()),
+            (cursor, pageable) -> transactionRepository.findPageByAccountIdBefore(accountId, cursor.getCreatedAt(), cursor.getId(), pageable.getPageSize()));
     }
     
-    public List<Transaction> getTransactionsByStatus(TransactionStatus status) {
-        return transactionRepository.findByTransactionStatus(status);
+    @Transactional(readOnly = true)
+    public TransactionConnection getTransactionsByStatus(TransactionStatus status, Integer first, String after) {
+        return page(first, after,
+            pageable -> transactionRepository.findByTransactionStatusOrderByCreatedAtDescIdDesc(status, pageable),
+            (cursor, pageable) -> transactionRepository.findPageByStatusBefore(status, cursor.getCreatedAt(), cursor.getId(), pageable));
     }
     
-    public List<Transaction> getTransactionsByType(TransactionType type) {
-        return transactionRepository.findByTransactionType(type);
+    @Transactional(readOnly = true)
+    public TransactionConnection getTransactionsByType(TransactionType type, Integer first, String after) {
+        return page(first, after,
+            pageable -> transactionRepository.findByTransactionTypeOrderByCreatedAtDescIdDesc(type, pageable),
+            (cursor, pageable) -> transactionRepository.findPageByTypeBefore(type, cursor.getCreatedAt(), cursor.getId(), pageable));
     }
     
+    // Both queries bind created_at bounds, so Postgres prunes them to the matching monthly partitions;
+    // ranges reaching back past the retention window also read transactions_archive
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
-        return transactionRepository.findByUserIdAndDateRange(userId, startDate, endDate);
+        return byDateRange(startDate, endDate,
+            (start, end) -> transactionRepository.findByUserIdAndDateRange(userId, start, end),
+            (start, end) -> partitionRepository.findArchivedByUserIdAndDateRange(userId, start, end));
     }
     
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByAccountAndDateRange(Long accountId, LocalDateTime startDate, LocalDateTime endDate) {
-        return transactionRepository.findByAccountIdAndDateRange(accountId, startDate, endDate);
+        return byDateRange(startDate, endDate,
+            (start, end) -> transactionRepository.findByAccountIdAndDateRange(accountId, start, end),
+            (start, end) -> partitionRepository.findArchivedByAccountIdAndDateRange(accountId, start, end));
     }
     
     public Transaction createTransaction(Long userId, TransactionType type, BigDecimal amount, String currency, String description) {
-        String reference = generateTransactionReference();
-        while (transactionRepository.existsByTransactionReference(reference)) {
-            reference = generateTransactionReference();
-        }
-        
-        Transaction transaction = new Transaction(reference, userId, type, amount);
+        return createTransaction(userId, type, amount, currency, description, null);
+    }
+    
+    public Transaction createTransaction(Long userId, TransactionType type, BigDecimal amount, String currency, String description,
+                                         String idempotencyKey) {
+        Transaction transaction = new Transaction(referenceGenerator.nextReference(), userId, type, amount);
         if (currency != null && !currency.isEmpty()) {
             transaction.setCurrency(currency);
         }
@@ -79,20 +161,20 @@ public class TransactionService {
             transaction.setDescription(description);
         }
         
-        return transactionRepository.save(transaction);
+        return create(transaction, idempotencyKey);
     }
     
     public Transaction createTransfer(Long userId, Long fromAccountId, Long toAccountId, BigDecimal amount, String currency, String description) {
+        return createTransfer(userId, fromAccountId, toAccountId, amount, currency, description, null);
+    }
+    
+    public Transaction createTransfer(Long userId, Long fromAccountId, Long toAccountId, BigDecimal amount, String currency, String description,
+                                      String idempotencyKey) {
         if (fromAccountId.equals(toAccountId)) {
             throw new RuntimeException("Cannot transfer to the same account");
         }
         
-        String reference = generateTransactionReference();
-        while (transactionRepository.existsByTransactionReference(reference)) {
-            reference = generateTransactionReference();
-        }
-        
-        Transaction transaction = new Transaction(reference, userId, TransactionType.TRANSFER, amount);
+        Transaction transaction = new Transaction(referenceGenerator.nextReference(), userId, TransactionType.TRANSFER, amount);
         transaction.setFromAccountId(fromAccountId);
         transaction.setToAccountId(toAccountId);
         
@@ -103,19 +185,16 @@ public class TransactionService {
             transaction.setDescription(description);
         }
         
-        return transactionRepository.save(transaction);
+        return create(transaction, idempotencyKey);
     }
     
+    // A refused or lost transition throws TransactionStatusConflictException; nothing is locked
+    // between reading the row and the conditional update
     public Transaction updateTransactionStatus(Long transactionId, TransactionStatus status, String failureReason) {
         Transaction transaction = transactionRepository.findById(transactionId)
             .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + transactionId));
         
-        transaction.setTransactionStatus(status);
-        if (failureReason != null && !failureReason.isEmpty()) {
-            transaction.setFailureReason(failureReason);
-        }
-        
-        return transactionRepository.save(transaction);
+        return stateMachine.transition(transaction, status, failureReason);
     }
     
     public Transaction completeTransaction(Long transactionId) {
@@ -127,13 +206,6 @@ public class TransactionService {
     }
     
     public Transaction cancelTransaction(Long transactionId) {
-        Transaction transaction = transactionRepository.findById(transactionId)
-            .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + transactionId));
-        
-        if (transaction.getTransactionStatus() == TransactionStatus.COMPLETED) {
-            throw new RuntimeException("Cannot cancel a completed transaction");
-        }
-        
         return updateTransactionStatus(transactionId, TransactionStatus.CANCELLED, null);
     }
     
@@ -146,64 +218,139 @@ public class TransactionService {
         }
         
         transactionRepository.deleteById(transactionId);
+        outbox.recordDeleted(transaction);
+        terminalCache.evict(transactionId);
     }
     
+    @Transactional(readOnly = true)
     public long getTransactionCount(Long userId, TransactionStatus status) {
         return transactionRepository.countByUserIdAndStatus(userId, status);
     }
     
+    // Totals are read from the incrementally maintained aggregates rather than summed per call
+    @Transactional(readOnly = true)
     public BigDecimal getTotalAmountByUserAndType(Long userId, TransactionType type) {
-        BigDecimal total = transactionRepository.getTotalAmountByUserIdAndType(userId, type);
-        return total != null ? total : BigDecimal.ZERO;
+        return totalsService.getTotalAmountByUserAndType(userId, type);
     }
     
+    // Single grouped query instead of one COUNT/SUM round trip per status and type
+    @Transactional(readOnly = true)
+    public UserTransactionSummary getUserTransactionSummary(Long userId) {
+        long completedCount = 0;
+        long pendingCount = 0;
+        long failedCount = 0;
+        BigDecimal totalDeposits = BigDecimal.ZERO;
+        BigDecimal totalWithdrawals = BigDecimal.ZERO;
+        BigDecimal totalTransfers = BigDecimal.ZERO;
+        
+        List<TransactionTotals> allTotals = new ArrayList<>(transactionRepository.getTotalsByUserId(userId));
+        allTotals.addAll(partitionRepository.getArchivedTotalsByUserId(userId));
+        for (TransactionTotals totals : allTotals) {
+            switch (totals.getStatus()) {
+                case COMPLETED -> completedCount += totals.getCount();
+                case PENDING -> pendingCount += totals.getCount();
+                case FAILED -> failedCount += totals.getCount();
+                default -> { }
+            }
+            if (totals.getStatus() == TransactionStatus.COMPLETED) {
+                switch (totals.getType()) {
+                    case DEPOSIT -> totalDeposits = totalDeposits.add(totals.getAmount());
+                    case WITHDRAWAL -> totalWithdrawals = totalWithdrawals.add(totals.getAmount());
+                    case TRANSFER -> totalTransfers = totalTransfers.add(totals.getAmount());
+                    default -> { }
+                }
+            }
+        }
+        
+        return new UserTransactionSummary(userId, completedCount, pendingCount, failedCount,
+                                          totalDeposits, totalWithdrawals, totalTransfers);
+    }
+    
+    @Transactional(readOnly = true)
     public BigDecimal getTotalDebitsByAccount(Long accountId) {
-        BigDecimal total = transactionRepository.getTotalDebitsByAccountId(accountId);
-        return total != null ? total : BigDecimal.ZERO;
+        return totalsService.getTotalDebitsByAccount(accountId);
     }
     
+    @Transactional(readOnly = true)
     public BigDecimal getTotalCreditsByAccount(Long accountId) {
-        BigDecimal total = transactionRepository.getTotalCreditsByAccountId(accountId);
-        return total != null ? total : BigDecimal.ZERO;
+        return totalsService.getTotalCreditsByAccount(accountId);
     }
     
+    @Transactional(readOnly = true)
     public List<Transaction> getStaleTransactions(int hoursOld) {
         LocalDateTime cutoffTime = LocalDateTime.now().minusHours(hoursOld);
         return transactionRepository.findStaleTransactions(cutoffTime);
     }
     
-    // Process pending transactions (would typically be called by a scheduler)
-    public void processPendingTransactions() {
-        List<Transaction> pendingTransactions = transactionRepository.findByTransactionStatus(TransactionStatus.PENDING);
-        
-        for (Transaction transaction : pendingTransactions) {
-            try {
-                // Update status to processing
-                transaction.setTransactionStatus(TransactionStatus.PROCESSING);
-                transactionRepository.save(transaction);
-                
-                // Here you would integrate with account service to perform the actual transfer
-                // For now, we'll just mark it as completed
-                // TODO: Integrate with account service
-                
-                // Simulate processing time
-                Thread.sleep(100);
-                
-                // Mark as completed
-                transaction.setTransactionStatus(TransactionStatus.COMPLETED);
-                transactionRepository.save(transaction);
-                
-            } catch (Exception e) {
-                // Mark as failed
-                transaction.setTransactionStatus(TransactionStatus.FAILED);
-                transaction.setFailureReason("Processing failed: " + e.getMessage());
-                transactionRepository.save(transaction);
+    // Drains the PENDING queue in committed batches; runs outside the caller's transaction so
+    // that no single database transaction spans the whole backlog
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int processPendingTransactions() {
+        return pendingTransactionProcessor.drain();
+    }
+    
+    // With an idempotency key, a retry of a request that already went through returns the original
+    // transaction instead of writing a second one
+    private Transaction create(Transaction transaction, String idempotencyKey) {
+        String key = idempotencyKeys.normalize(idempotencyKey);
+        if (key != null) {
+            Optional<Transaction> existing = idempotencyKeys.findExisting(transaction.getUserId(), key);
+            if (existing.isPresent()) {
+                return sameRequest(existing.get(), transaction, key);
             }
+            if (!idempotencyKeys.claim(transaction.getUserId(), key, transaction.getTransactionReference())) {
+                // A concurrent request with the same key committed first
+                Transaction winner = idempotencyKeys.findExisting(transaction.getUserId(), key)
+                    .orElseThrow(() -> new RuntimeException("Idempotency key " + key + " refers to a transaction that no longer exists"));
+                return sameRequest(winner, transaction, key);
+            }
+        }
+        
+        Transaction saved = transactionRepository.save(transaction);
+        outbox.recordCreated(saved);
+        return saved;
+    }
+    
+    private static Transaction sameRequest(Transaction existing, Transaction requested, String key) {
+        boolean same = existing.getTransactionType() == requested.getTransactionType()
+            && existing.getAmount().compareTo(requested.getAmount()) == 0
+            && Objects.equals(existing.getCurrency(), requested.getCurrency())
+            && Objects.equals(existing.getFromAccountId(), requested.getFromAccountId())
+            && Objects.equals(existing.getToAccountId(), requested.getToAccountId());
+        if (!same) {
+            throw new RuntimeException("Idempotency key " + key + " was already used for a different request");
         }
+        return existing;
     }
     
-    private String generateTransactionReference() {
-        // Generate a unique transaction reference
-        return "TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    private List<Transaction> byDateRange(LocalDateTime startDate, LocalDateTime endDate,
+                                          BiFunction<LocalDateTime, LocalDateTime, List<Transaction>> hot,
+                                          BiFunction<LocalDateTime, LocalDateTime, List<Transaction>> archived) {
+        LocalDateTime boundary = partitionMaintenance.hotBoundary();
+        if (!startDate.isBefore(boundary)) {
+            return hot.apply(startDate, endDate);
+        }
+        // A month whose rows are still open stays in the hot table past the boundary, so the hot
+        // side keeps the full range; a row is only ever in one of the two tables
+        List<Transaction> result = new ArrayList<>(archived.apply(startDate, endDate.isBefore(boundary) ? endDate : boundary));
+        result.addAll(hot.apply(startDate, endDate));
+        return result;
+    }
+    
+    // Fetches one row beyond the requested page size so hasNextPage needs no COUNT query
+    private TransactionConnection page(Integer first, String after,
+                                       Function<Pageable, List<Transaction>> firstPage,
+                                       BiFunction<TransactionCursor, Pageable, List<Transaction>> nextPage) {
+        int pageSize = first == null ? DEFAULT_PAGE_SIZE : first;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new RuntimeException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        boolean hasCursor = after != null && !after.isEmpty();
+        List<Transaction> slice = hasCursor
+            ? nextPage.apply(TransactionCursor.decode(after), pageable)
+            : firstPage.apply(pageable);
+        return TransactionConnection.of(slice, pageSize, hasCursor);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.graphbanking.transactionservice.service;
+
+import com.graphbanking.transactionservice.event.TransactionStatusChangedEvent;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Single entry point for status changes. The transition is checked against TransactionStatus and
+// then written with one compare-and-set UPDATE on the status that was read, so no row lock is held
+// between the read and the write and a lost race surfaces as TransactionStatusConflictException.
+// A refused transition writes nothing, so it does not doom the caller's transaction either.
+@Component
+@Transactional(propagation = Propagation.MANDATORY, noRollbackFor = TransactionStatusConflictException.class)
+public class TransactionStateMachine {
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // Returns the transaction as it is after the change. Asking for the status it already has is not
+    // a transition: nothing is published, but a new failure reason is still recorded.
+    public Transaction transition(Transaction transaction, TransactionStatus next, String failureReason) {
+        TransactionStatus current = transaction.getTransactionStatus();
+        String reason = failureReason != null && !failureReason.isEmpty() ? failureReason : null;
+        if (current == next) {
+            return reason != null && !reason.equals(transaction.getFailureReason())
+                ? updateFailureReason(transaction, reason)
+                : transaction;
+        }
+        if (!current.canTransitionTo(next)) {
+            throw TransactionStatusConflictException.illegalTransition(transaction.getId(), current, next);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime processedAt = next == TransactionStatus.COMPLETED || next == TransactionStatus.FAILED ? now : null;
+        if (transactionRepository.compareAndSetStatus(transaction.getId(), current, next, reason, processedAt, now) == 0) {
+            throw TransactionStatusConflictException.concurrentChange(transaction.getId(), current, next);
+        }
+        
+        // The row is already written; detach so these changes are not flushed a second time
+        entityManager.detach(transaction);
+        transaction.setTransactionStatus(next);
+        transaction.setUpdatedAt(now);
+        transaction.setClaimedAt(null);
+        if (reason != null) {
+            transaction.setFailureReason(reason);
+        }
+        if (processedAt != null) {
+            transaction.setProcessedAt(processedAt);
+        }
+        eventPublisher.publishEvent(new TransactionStatusChangedEvent(transaction, current));
+        return transaction;
+    }
+    
+    private Transaction updateFailureReason(Transaction transaction, String reason) {
+        TransactionStatus current = transaction.getTransactionStatus();
+        LocalDateTime now = LocalDateTime.now();
+        if (transactionRepository.compareAndSetStatus(transaction.getId(), current, current, reason, null, now) == 0) {
+            throw TransactionStatusConflictException.concurrentChange(transaction.getId(), current, current);
+        }
+        entityManager.detach(transaction);
+        transaction.setFailureReason(reason);
+        transaction.setUpdatedAt(now);
+        transaction.setClaimedAt(null);
+        return transaction;
+    }
+}
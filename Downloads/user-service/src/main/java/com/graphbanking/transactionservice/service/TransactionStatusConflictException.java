@@ -0,0 +1,39 @@
+package com.graphbanking.transactionservice.service;
+
+import com.graphbanking.transactionservice.model.TransactionStatus;
+
+// A status change that was refused, either because the state machine does not allow it or
+// because another writer moved the transaction first. Callers can re-read and decide again.
+public class TransactionStatusConflictException extends RuntimeException {
+    
+    private final Long transactionId;
+    private final TransactionStatus currentStatus;
+    private final TransactionStatus requestedStatus;
+    
+    private TransactionStatusConflictException(String message, Long transactionId,
+                                               TransactionStatus currentStatus, TransactionStatus requestedStatus) {
+        super(message);
+        this.transactionId = transactionId;
+        this.currentStatus = currentStatus;
+        this.requestedStatus = requestedStatus;
+    }
+    
+    public static TransactionStatusConflictException illegalTransition(Long transactionId, TransactionStatus current,
+                                                                       TransactionStatus requested) {
+        return new TransactionStatusConflictException(
+            "Transaction " + transactionId + " cannot move from " + current + " to " + requested,
+            transactionId, current, requested);
+    }
+    
+    // currentStatus is the status the caller read, which is no longer the one in the database
+    public static TransactionStatusConflictException concurrentChange(Long transactionId, TransactionStatus expected,
+                                                                      TransactionStatus requested) {
+        return new TransactionStatusConflictException(
+            "Transaction " + transactionId + " was changed by another request while moving from " + expected + " to " + requested,
+            transactionId, expected, requested);
+    }
+    
+    public Long getTransactionId() { return transactionId; }
+    public TransactionStatus getCurrentStatus() { return currentStatus; }
+    public TransactionStatus getRequestedStatus() { return requestedStatus; }
+}
@@ -0,0 +1,97 @@
+package com.graphbanking.transactionservice.service;
+
+import com.graphbanking.transactionservice.event.TransactionStatusChangedEvent;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.repository.TransactionTotalsRepository;
+import com.graphbanking.transactionservice.repository.TransactionTotalsRepository.AccountTotals;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// Keeps account_transaction_totals / user_transaction_totals in step with COMPLETED transactions
+@Service
+@Transactional
+public class TransactionTotalsService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionTotalsService.class);
+
+    @Autowired
+    private TransactionTotalsRepository totalsRepository;
+
+    // Runs synchronously inside the transaction that changed the status
+    @EventListener
+    public void onStatusChanged(TransactionStatusChangedEvent event) {
+        BigDecimal delta;
+        if (event.getNewStatus() == TransactionStatus.COMPLETED && event.getPreviousStatus() != TransactionStatus.COMPLETED) {
+            delta = event.getAmount();
+        } else if (event.getPreviousStatus() == TransactionStatus.COMPLETED && event.getNewStatus() != TransactionStatus.COMPLETED) {
+            delta = event.getAmount().negate();
+        } else {
+            return;
+        }
+
+        if (event.getFromAccountId() != null) {
+            totalsRepository.addToAccount(event.getFromAccountId(), delta, BigDecimal.ZERO);
+        }
+        if (event.getToAccountId() != null) {
+            totalsRepository.addToAccount(event.getToAccountId(), BigDecimal.ZERO, delta);
+        }
+        totalsRepository.addToUser(event.getUserId(), event.getTransactionType(), delta);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalDebitsByAccount(Long accountId) {
+        return totalsRepository.getTotalDebits(accountId);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalCreditsByAccount(Long accountId) {
+        return totalsRepository.getTotalCredits(accountId);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalAmountByUserAndType(Long userId, TransactionType type) {
+        return totalsRepository.getTotalAmount(userId, type);
+    }
+
+    // Recomputes every total from transactions and transactions_archive and repairs any drift.
+    // The comparison runs in the database, which returns only the aggregates that differ, so
+    // memory stays flat however many accounts there are. Runs on one snapshot so the comparison
+    // is consistent; a concurrent increment makes the repair fail and the next run picks it up
+    // instead of overwriting a newer total.
+    @Scheduled(cron = "${transaction.totals.reconcile-cron:0 30 2 * * *}")
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public int reconcile() {
+        int corrections = 0;
+
+        for (Map.Entry<Long, AccountTotals> drift : totalsRepository.findAccountTotalsDrift().entrySet()) {
+            AccountTotals actual = drift.getValue();
+            log.warn("Account {} totals drifted, resetting to debits={} credits={}",
+                     drift.getKey(), actual.getDebits(), actual.getCredits());
+            totalsRepository.setAccountTotals(drift.getKey(), actual);
+            corrections++;
+        }
+
+        for (Map.Entry<Long, Map<TransactionType, BigDecimal>> drift : totalsRepository.findUserTotalsDrift().entrySet()) {
+            for (Map.Entry<TransactionType, BigDecimal> total : drift.getValue().entrySet()) {
+                log.warn("User {} {} total drifted, resetting to {}", drift.getKey(), total.getKey(), total.getValue());
+                totalsRepository.setUserTotal(drift.getKey(), total.getKey(), total.getValue());
+                corrections++;
+            }
+        }
+
+        if (corrections > 0) {
+            log.warn("Transaction totals reconciliation corrected {} aggregate rows", corrections);
+        }
+        return corrections;
+    }
+}
@@ -1,9 +1,13 @@
 package com.graphbanking.userservice;
 
+import com.graphbanking.common.datasource.ReplicaRoutingConfig;
+import com.graphbanking.common.graphql.GraphQLConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
+@Import({GraphQLConfig.class, ReplicaRoutingConfig.class})
 public class UserServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,65 @@
+package com.graphbanking.userservice.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Embedded stand-in for the shared tier, for tests and single-instance setups
+public class InMemorySharedCacheTier implements SharedCacheTier {
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final Clock clock;
+    
+    public InMemorySharedCacheTier() {
+        this(Clock.systemUTC());
+    }
+    
+    public InMemorySharedCacheTier(Clock clock) {
+        this.clock = clock;
+    }
+    
+    @Override
+    public <V> Optional<V> get(String key, Class<V> type) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= clock.millis()) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(type.cast(entry.value));
+    }
+    
+    @Override
+    public void put(String key, Object value, Duration ttl) {
+        entries.put(key, new Entry(value, clock.millis() + ttl.toMillis()));
+    }
+    
+    @Override
+    public void evict(String key) {
+        entries.remove(key);
+        listeners.forEach(listener -> listener.accept(key));
+    }
+    
+    @Override
+    public void onEvict(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+    
+    private static class Entry {
+        private final Object value;
+        private final long expiresAt;
+        
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
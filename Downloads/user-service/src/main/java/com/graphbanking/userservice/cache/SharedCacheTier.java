@@ -0,0 +1,18 @@
+package com.graphbanking.userservice.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// A cache shared by every instance of the service (Redis or similar). Evictions are broadcast so
+// each instance can drop the key from its near cache as well.
+public interface SharedCacheTier {
+    
+    <V> Optional<V> get(String key, Class<V> type);
+    
+    void put(String key, Object value, Duration ttl);
+    
+    void evict(String key);
+    
+    void onEvict(Consumer<String> listener);
+}
@@ -0,0 +1,198 @@
+package com.graphbanking.userservice.cache;
+
+import com.graphbanking.common.datasource.ReplicaRoutingDataSource;
+import com.graphbanking.userservice.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Two-tier cache for user lookups by id and by email: a small near cache per instance in front of
+// an optional shared tier. Cached users are shared between callers and must be treated as read-only.
+// A load that overlapped an eviction is not kept, so a reader that fetched a user just before an
+// update committed cannot put the old row back after the update's eviction. For the same reason
+// misses are loaded from the primary: a lagging replica could still return the row as it was before
+// an eviction that has already happened.
+@Component
+public class UserCache {
+    
+    private final NearCache<String, User> near;
+    private final SharedCacheTier shared;
+    private final Duration sharedTtl;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+    // Bumped by every eviction, local or broadcast from another instance
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    public UserCache(ObjectProvider<SharedCacheTier> sharedTier, MeterRegistry meterRegistry,
+                     @Value("${user.cache.max-size:10000}") int maxSize,
+                     @Value("${user.cache.ttl-seconds:60}") long ttlSeconds,
+                     @Value("${user.cache.shared-ttl-seconds:600}") long sharedTtlSeconds) {
+        this.near = new NearCache<>("users", maxSize, Duration.ofSeconds(ttlSeconds), meterRegistry);
+        this.shared = sharedTier.getIfAvailable();
+        this.sharedTtl = Duration.ofSeconds(sharedTtlSeconds);
+        this.sharedHits = Counter.builder("cache.gets").tag("cache", "users.shared").tag("result", "hit").register(meterRegistry);
+        this.sharedMisses = Counter.builder("cache.gets").tag("cache", "users.shared").tag("result", "miss").register(meterRegistry);
+        if (shared != null) {
+            // Another instance changed a user: drop our copy instead of serving it until it expires
+            shared.onEvict(key -> {
+                invalidations.incrementAndGet();
+                near.evict(key);
+            });
+        }
+    }
+    
+    public Optional<User> getById(Long id, Supplier<Optional<User>> loader) {
+        return get(idKey(id), loader);
+    }
+    
+    public Optional<User> getByEmail(String email, Supplier<Optional<User>> loader) {
+        return get(emailKey(email), loader);
+    }
+    
+    // Ids found in either tier are served from there; the rest are loaded with one call to the loader.
+    // Missing ids are simply absent from the result.
+    public List<User> getAllById(Collection<Long> ids, Function<Collection<Long>, List<User>> loader) {
+        List<User> users = new ArrayList<>(ids.size());
+        Set<Long> misses = new LinkedHashSet<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            User cached = lookup(idKey(id));
+            if (cached != null) {
+                users.add(cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return users;
+        }
+        
+        long generation = invalidations.get();
+        List<User> loaded = ReplicaRoutingDataSource.onPrimary(() -> loader.apply(misses));
+        if (cacheable()) {
+            loaded.forEach(user -> admit(user, generation));
+        }
+        users.addAll(loaded);
+        return users;
+    }
+    
+    // Called after a write and again after commit; loads in flight at either point are not admitted
+    public void evict(Long id, String... emails) {
+        List<String> keys = new ArrayList<>();
+        keys.add(idKey(id));
+        for (String email : emails) {
+            if (email != null) {
+                keys.add(emailKey(email));
+            }
+        }
+        evictKeys(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictKeys(keys);
+                }
+            });
+        }
+    }
+    
+    private Optional<User> get(String key, Supplier<Optional<User>> loader) {
+        User cached = lookup(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
+        long generation = invalidations.get();
+        Optional<User> loaded = ReplicaRoutingDataSource.onPrimary(loader);
+        if (loaded.isPresent() && cacheable()) {
+            admit(loaded.get(), generation);
+        }
+        return loaded;
+    }
+    
+    // Put first, then check: an eviction that started after the load either shows up in the
+    // generation here, in which case the entry is taken back out, or runs after the put and removes it
+    private void admit(User user, long generation) {
+        put(user);
+        if (invalidations.get() != generation) {
+            remove(keys(user));
+        }
+    }
+    
+    private User lookup(String key) {
+        User cached = near.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        
+        if (shared != null) {
+            Optional<User> sharedUser = shared.get(key, User.class);
+            if (sharedUser.isPresent()) {
+                sharedHits.increment();
+                near.put(key, sharedUser.get());
+                return sharedUser.get();
+            }
+            sharedMisses.increment();
+        }
+        return null;
+    }
+    
+    private void put(User user) {
+        for (String key : keys(user)) {
+            near.put(key, user);
+            if (shared != null) {
+                shared.put(key, user, sharedTtl);
+            }
+        }
+    }
+    
+    // A read-write transaction may be looking at its own uncommitted changes, which must not leak,
+    // and a caller's transaction that already reads from the replica may be looking at old ones
+    private static boolean cacheable() {
+        if (ReplicaRoutingDataSource.isReadingFromReplica()) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+            || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+    
+    private void evictKeys(List<String> keys) {
+        invalidations.incrementAndGet();
+        remove(keys);
+    }
+    
+    private void remove(List<String> keys) {
+        for (String key : keys) {
+            near.evict(key);
+            if (shared != null) {
+                shared.evict(key);
+            }
+        }
+    }
+    
+    private static List<String> keys(User user) {
+        return List.of(idKey(user.getId()), emailKey(user.getEmail()));
+    }
+    
+    private static String idKey(Long id) {
+        return "user:id:" + id;
+    }
+    
+    private static String emailKey(String email) {
+        return "user:email:" + email;
+    }
+}
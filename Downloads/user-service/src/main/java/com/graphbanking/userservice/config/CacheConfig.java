@@ -0,0 +1,19 @@
+package com.graphbanking.userservice.config;
+
+import com.graphbanking.userservice.cache.InMemorySharedCacheTier;
+import com.graphbanking.userservice.cache.SharedCacheTier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+    
+    // Without a SharedCacheTier bean the user cache runs near-cache only; a networked tier
+    // (e.g. Redis) is plugged in by declaring its own SharedCacheTier bean
+    @Bean
+    @ConditionalOnProperty(name = "user.cache.shared", havingValue = "in-memory")
+    public SharedCacheTier inMemorySharedCacheTier() {
+        return new InMemorySharedCacheTier();
+    }
+}
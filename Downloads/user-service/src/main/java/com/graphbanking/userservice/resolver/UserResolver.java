@@ -2,13 +2,20 @@ package com.graphbanking.userservice.resolver;
 
 import com.graphbanking.userservice.model.User;
 import com.graphbanking.userservice.service.UserService;
+import org.dataloader.DataLoader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Controller
 public class UserResolver {
@@ -16,14 +23,26 @@ public class UserResolver {
     @Autowired
     private UserService userService;
     
+    // Every user(id) field in one request is collected and loaded with a single findAllById
+    public UserResolver(BatchLoaderRegistry batchLoaderRegistry) {
+        batchLoaderRegistry.forTypePair(Long.class, User.class)
+            .registerMappedBatchLoader((ids, environment) -> Mono.fromSupplier(() -> usersById(ids)));
+    }
+    
     @QueryMapping
     public List<User> users() {
         return userService.getAllUsers();
     }
     
     @QueryMapping
-    public User user(@Argument Long id) {
-        return userService.getUserById(id).orElse(null);
+    public CompletableFuture<User> user(@Argument Long id, DataLoader<Long, User> userLoader) {
+        return userLoader.load(id);
+    }
+    
+    @QueryMapping
+    public List<User> usersByIds(@Argument List<Long> ids) {
+        Map<Long, User> users = usersById(ids);
+        return ids.stream().map(users::get).collect(Collectors.toList());
     }
     
     @QueryMapping
@@ -32,12 +51,17 @@ public class UserResolver {
     }
     
     @MutationMapping
-    public User createUser(@Argument Map<String, Object> input) {
+    public CompletableFuture<User> createUser(@Argument Map<String, Object> input) {
         String name = (String) input.get("name");
         String email = (String) input.get("email");
         String password = (String) input.get("password");
         
-        return userService.createUser(name, email, password);
+        return userService.createUserAsync(name, email, password);
+    }
+    
+    @MutationMapping
+    public User authenticate(@Argument String email, @Argument String password) {
+        return userService.authenticate(email, password).orElse(null);
     }
     
     @MutationMapping
@@ -57,4 +81,9 @@ public class UserResolver {
             return false;
         }
     }
-} 
\ No newline at end of file
+    
+    private Map<Long, User> usersById(Collection<Long> ids) {
+        return userService.getUsersByIds(ids).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.graphbanking.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Runs password hashing (deliberately slow CPU work) on its own small pool instead of request
+// threads. The queue is short on purpose: in a signup burst callers are turned away quickly
+// instead of piling up behind the pool while holding their request threads.
+@Service
+public class PasswordHashingService {
+    
+    private final PasswordEncoder passwordEncoder;
+    private final String unknownUserHash;
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer hashTimer;
+    private final Counter rejected;
+    
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${user.password.hashing-threads:0}") int threads,
+                                  @Value("${user.password.hashing-queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.unknownUserHash = passwordEncoder.encode(UUID.randomUUID().toString());
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(poolSize);
+        this.executor.setMaxPoolSize(poolSize);
+        this.executor.setQueueCapacity(queueCapacity);
+        this.executor.setThreadNamePrefix("password-hashing-");
+        this.executor.initialize();
+        
+        this.hashTimer = Timer.builder("user.password.hashing").register(meterRegistry);
+        this.rejected = Counter.builder("user.password.hashing.rejected").register(meterRegistry);
+        Gauge.builder("user.password.hashing.queue", executor, ThreadPoolTaskExecutor::getQueueSize).register(meterRegistry);
+        Gauge.builder("user.password.hashing.active", executor, ThreadPoolTaskExecutor::getActiveCount).register(meterRegistry);
+    }
+    
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+    
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+    
+    // Costs the same as a real check but never matches, so a login for an unknown email takes as long
+    // as one with a wrong password
+    public CompletableFuture<Boolean> matchesUnknownUser(String rawPassword) {
+        return submit(() -> {
+            passwordEncoder.matches(rawPassword, unknownUserHash);
+            return false;
+        });
+    }
+    
+    // Cheap string inspection, no hashing involved
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(() -> hashTimer.record(work), executor);
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new RuntimeException("Too many password operations in progress, please retry shortly");
+        }
+    }
+}
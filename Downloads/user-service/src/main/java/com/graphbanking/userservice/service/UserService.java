@@ -1,12 +1,26 @@
 package com.graphbanking.userservice.service;
 
+import com.graphbanking.userservice.cache.UserCache;
 import com.graphbanking.userservice.model.User;
 import com.graphbanking.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @Service
 public class UserService {
@@ -15,37 +29,105 @@ public class UserService {
     private UserRepository userRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    public UserService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
     
+    @Transactional(readOnly = true)
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+        return userCache.getById(id, () -> userRepository.findById(id));
     }
     
+    // Cached users are served from the cache and the rest come from one query; missing ids are
+    // simply absent from the result
+    @Transactional(readOnly = true)
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        return userCache.getAllById(ids, userRepository::findAllById);
+    }
+    
+    @Transactional(readOnly = true)
     public Optional<User> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return userCache.getByEmail(email, () -> userRepository.findByEmail(email));
     }
     
+    // Blocks the caller until the hash is ready but saves on the caller's thread, so the insert
+    // joins the caller's transaction
     public User createUser(String name, String email, String password) {
-        if (userRepository.existsByEmail(email)) {
-            throw new RuntimeException("User with email " + email + " already exists");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            ensureEmailAvailable(email);
+            User user = saveNewUser(name, email, await(passwordHashingService.encode(password)));
+            outcome = "success";
+            return user;
+        } finally {
+            sample.stop(meterRegistry.timer("user.registration", "outcome", outcome));
+        }
+    }
+    
+    // Frees the request thread while the password is hashed; used by the createUser mutation. The email
+    // is checked up front to fail fast, then again with the insert in one transaction on the
+    // application executor, so the blocking JDBC work never occupies the small hashing pool. The insert
+    // runs with the caller's request attached, so the commit still marks the client as having written
+    // and its next reads stay on the primary.
+    public CompletableFuture<User> createUserAsync(String name, String email, String password) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ensureEmailAvailable(email);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return passwordHashingService.encode(password)
+            .thenApplyAsync(hash -> withRequest(request, () -> transactionTemplate.execute(status -> {
+                ensureEmailAvailable(email);
+                return saveNewUser(name, email, hash);
+            })), taskExecutor)
+            .whenComplete((user, error) ->
+                sample.stop(meterRegistry.timer("user.registration", "outcome", error == null ? "success" : "failure")));
+    }
+    
+    // Verifies a password and, on success, transparently rehashes it if it was stored with an
+    // older algorithm or cost factor. Unknown emails are hashed too, so timing does not reveal them.
+    public Optional<User> authenticate(String email, String password) {
+        Optional<User> found = userRepository.findByEmail(email);
+        if (found.isEmpty()) {
+            await(passwordHashingService.matchesUnknownUser(password));
+            return Optional.empty();
+        }
+        if (!await(passwordHashingService.matches(password, found.get().getPassword()))) {
+            return Optional.empty();
         }
         
-        User user = new User();
-        user.setName(name);
-        user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password));
-        
-        return userRepository.save(user);
+        User user = found.get();
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            user.setPassword(await(passwordHashingService.encode(password)));
+            user = userRepository.save(user);
+            userCache.evict(user.getId(), user.getEmail());
+        }
+        return Optional.of(user);
     }
     
     public User updateUser(Long id, String name, String email) {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
+        String previousEmail = user.getEmail();
         if (name != null) user.setName(name);
         if (email != null && !email.equals(user.getEmail())) {
             if (userRepository.existsByEmail(email)) {
@@ -54,13 +136,58 @@ public class UserService {
             user.setEmail(email);
         }
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userCache.evict(id, previousEmail, saved.getEmail());
+        return saved;
     }
     
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found");
+        User user = userRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        userRepository.delete(user);
+        userCache.evict(id, user.getEmail());
+    }
+    
+    private void ensureEmailAvailable(String email) {
+        if (userRepository.existsByEmail(email)) {
+            throw new RuntimeException("User with email " + email + " already exists");
+        }
+    }
+    
+    private User saveNewUser(String name, String email, String passwordHash) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        user.setPassword(passwordHash);
+        
+        // A concurrent signup with the same email can pass the existence check; the unique
+        // constraint decides, and the loser gets the same error as a plain duplicate
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("User with email " + email + " already exists");
+        }
+    }
+    
+    // Runs work on this thread as if it were serving the given request; null means no request
+    private static <T> T withRequest(RequestAttributes request, Supplier<T> work) {
+        RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+        RequestContextHolder.setRequestAttributes(request);
+        try {
+            return work.get();
+        } finally {
+            RequestContextHolder.setRequestAttributes(previous);
+        }
+    }
+    
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
-        userRepository.deleteById(id);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+-- Baseline schema for the transaction service, matching the columns previously generated by ddl-auto
+CREATE TABLE IF NOT EXISTS transactions (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    transaction_reference VARCHAR(255) NOT NULL,
+    from_account_id BIGINT,
+    to_account_id BIGINT,
+    user_id BIGINT NOT NULL,
+    transaction_type VARCHAR(32) NOT NULL,
+    transaction_status VARCHAR(32) NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    currency VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    failure_reason VARCHAR(255),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    processed_at TIMESTAMP,
+    CONSTRAINT uk_transactions_reference UNIQUE (transaction_reference)
+);
@@ -0,0 +1,33 @@
+-- Running totals of COMPLETED transactions, maintained on every status change into or out of COMPLETED
+CREATE TABLE IF NOT EXISTS account_transaction_totals (
+    account_id BIGINT PRIMARY KEY,
+    total_debits NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    total_credits NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS user_transaction_totals (
+    user_id BIGINT NOT NULL,
+    transaction_type VARCHAR(32) NOT NULL,
+    total_amount NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP,
+    PRIMARY KEY (user_id, transaction_type)
+);
+
+-- Backfill from the existing history
+INSERT INTO account_transaction_totals (account_id, total_debits, total_credits, updated_at)
+SELECT e.account_id, SUM(e.debit), SUM(e.credit), CURRENT_TIMESTAMP
+FROM (
+    SELECT from_account_id AS account_id, amount AS debit, 0 AS credit
+    FROM transactions WHERE transaction_status = 'COMPLETED' AND from_account_id IS NOT NULL
+    UNION ALL
+    SELECT to_account_id AS account_id, 0 AS debit, amount AS credit
+    FROM transactions WHERE transaction_status = 'COMPLETED' AND to_account_id IS NOT NULL
+) e
+GROUP BY e.account_id;
+
+INSERT INTO user_transaction_totals (user_id, transaction_type, total_amount, updated_at)
+SELECT user_id, transaction_type, SUM(amount), CURRENT_TIMESTAMP
+FROM transactions
+WHERE transaction_status = 'COMPLETED'
+GROUP BY user_id, transaction_type;
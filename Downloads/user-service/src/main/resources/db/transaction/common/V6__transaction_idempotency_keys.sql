@@ -0,0 +1,11 @@
+-- Client supplied idempotency keys for createTransaction / createTransfer. Keys are scoped per user
+-- and point at the transaction reference, which is generated before the row is written.
+CREATE TABLE IF NOT EXISTS transaction_idempotency_keys (
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(128) NOT NULL,
+    transaction_reference VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_idempotency_keys_created_at ON transaction_idempotency_keys (created_at);
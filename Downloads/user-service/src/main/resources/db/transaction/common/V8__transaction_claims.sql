@@ -0,0 +1,3 @@
+-- Set when PendingTransactionProcessor claims a row and cleared by the next status change, so only
+-- claims that the processor itself left behind are ever released back to PENDING.
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS claimed_at TIMESTAMP;
@@ -0,0 +1,17 @@
+-- Outbox ids follow insert order, but the writing transactions commit in any order, so a consumer
+-- reading by id could pass over an event that commits late. The relay therefore assigns each event
+-- a stream position when it publishes it, under a single counter row, so positions follow commit
+-- order and are what consumers replay from. Events published before this migration keep their id.
+ALTER TABLE transaction_outbox ADD COLUMN IF NOT EXISTS stream_position BIGINT;
+
+UPDATE transaction_outbox SET stream_position = id WHERE published_at IS NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_transaction_outbox_stream_position ON transaction_outbox (stream_position);
+
+CREATE TABLE IF NOT EXISTS transaction_outbox_position (
+    id INT PRIMARY KEY,
+    last_position BIGINT NOT NULL
+);
+
+INSERT INTO transaction_outbox_position (id, last_position)
+SELECT 1, COALESCE(MAX(stream_position), 0) FROM transaction_outbox;
@@ -0,0 +1,31 @@
+-- H2 has no partial or covering indexes, so the PostgreSQL partial indexes become
+-- full composite indexes with the status column as an extra key
+CREATE INDEX IF NOT EXISTS idx_transactions_created
+    ON transactions (created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_created
+    ON transactions (user_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_status
+    ON transactions (user_id, transaction_status);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_type_status
+    ON transactions (user_id, transaction_type, transaction_status);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_created
+    ON transactions (from_account_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_created
+    ON transactions (to_account_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_completed
+    ON transactions (from_account_id, transaction_status);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_completed
+    ON transactions (to_account_id, transaction_status);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_status_created
+    ON transactions (transaction_status, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_type_created
+    ON transactions (transaction_type, created_at DESC, id DESC);
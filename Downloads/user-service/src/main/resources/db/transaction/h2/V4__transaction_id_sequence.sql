@@ -0,0 +1,5 @@
+-- See postgresql/V4; H2 is only used for throwaway databases, so the sequence starts from an empty table
+CREATE SEQUENCE IF NOT EXISTS transaction_id_seq START WITH 50 INCREMENT BY 50;
+
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT NEXT VALUE FOR transaction_id_seq;
@@ -0,0 +1,11 @@
+-- See postgresql/V5; H2 has no partial indexes, so one index covers both the relay and the purge
+CREATE TABLE IF NOT EXISTS transaction_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(64) NOT NULL,
+    payload CLOB NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    published_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_outbox_published ON transaction_outbox (published_at, id);
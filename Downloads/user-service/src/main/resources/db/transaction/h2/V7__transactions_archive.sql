@@ -0,0 +1,25 @@
+-- See postgresql/V7. H2 keeps a single unpartitioned transactions table; the archive table exists
+-- so the archived history reads behave the same on both databases, and references stay unique
+-- through the plain constraint from V1.
+CREATE TABLE IF NOT EXISTS transactions_archive (
+    id BIGINT NOT NULL,
+    transaction_reference VARCHAR(255) NOT NULL,
+    from_account_id BIGINT,
+    to_account_id BIGINT,
+    user_id BIGINT NOT NULL,
+    transaction_type VARCHAR(32) NOT NULL,
+    transaction_status VARCHAR(32) NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    currency VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    failure_reason VARCHAR(255),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_user_created ON transactions_archive (user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_from_account_created ON transactions_archive (from_account_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_to_account_created ON transactions_archive (to_account_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_id ON transactions_archive (id);
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_reference ON transactions_archive (transaction_reference);
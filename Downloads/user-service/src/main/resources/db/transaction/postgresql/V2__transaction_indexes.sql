@@ -0,0 +1,40 @@
+-- Keyset pages for transactions(), newest first
+CREATE INDEX IF NOT EXISTS idx_transactions_created
+    ON transactions (created_at DESC, id DESC);
+
+-- transactionsByUserId pages and findByUserIdAndDateRange
+CREATE INDEX IF NOT EXISTS idx_transactions_user_created
+    ON transactions (user_id, created_at DESC, id DESC);
+
+-- countByUserIdAndStatus and findByUserIdAndTransactionStatus
+CREATE INDEX IF NOT EXISTS idx_transactions_user_status
+    ON transactions (user_id, transaction_status);
+
+-- getTotalAmountByUserIdAndType and findByUserIdAndTransactionType, answered from the index alone
+CREATE INDEX IF NOT EXISTS idx_transactions_user_type_status
+    ON transactions (user_id, transaction_type, transaction_status) INCLUDE (amount);
+
+-- One index per side of the account predicates (findByAccountIdAndDateRange, transactionsByAccountId pages)
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_created
+    ON transactions (from_account_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_created
+    ON transactions (to_account_id, created_at DESC, id DESC);
+
+-- getTotalDebitsByAccountId / getTotalCreditsByAccountId only ever read COMPLETED rows
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_completed
+    ON transactions (from_account_id) INCLUDE (amount) WHERE transaction_status = 'COMPLETED';
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_completed
+    ON transactions (to_account_id) INCLUDE (amount) WHERE transaction_status = 'COMPLETED';
+
+-- findStaleTransactions and the pending queue; stays small because rows leave PENDING quickly
+CREATE INDEX IF NOT EXISTS idx_transactions_pending_created
+    ON transactions (created_at, id) WHERE transaction_status = 'PENDING';
+
+-- transactionsByStatus / transactionsByType pages
+CREATE INDEX IF NOT EXISTS idx_transactions_status_created
+    ON transactions (transaction_status, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_type_created
+    ON transactions (transaction_type, created_at DESC, id DESC);
@@ -0,0 +1,10 @@
+-- Ids come from a sequence stepping by 50 so Hibernate's pooled optimizer can hand out a block
+-- of ids per round trip and batch the inserts. Each nextval reserves (value - 49 .. value], which
+-- also keeps plain INSERTs that rely on the column default clear of the blocks held by Hibernate.
+CREATE SEQUENCE IF NOT EXISTS transaction_id_seq INCREMENT BY 50;
+
+SELECT setval('transaction_id_seq', COALESCE((SELECT MAX(id) FROM transactions), 0) + 50, false);
+
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT nextval('transaction_id_seq');
+ALTER SEQUENCE transaction_id_seq OWNED BY transactions.id;
@@ -0,0 +1,14 @@
+-- Change events written in the same database transaction as the change itself and relayed to
+-- the event broker by OutboxRelay. The id is the stream position consumers replay from.
+CREATE TABLE IF NOT EXISTS transaction_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(64) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    published_at TIMESTAMP
+);
+
+-- The relay only ever looks at the unpublished tail, which stays small however long the retained history is
+CREATE INDEX IF NOT EXISTS idx_transaction_outbox_unpublished ON transaction_outbox (id) WHERE published_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_transaction_outbox_published_at ON transaction_outbox (published_at);
@@ -0,0 +1,175 @@
+-- Monthly range partitions on created_at. Every unique constraint on a partitioned table has to
+-- contain the partition key, so the primary key becomes (id, created_at) and the reference is unique
+-- per created_at only. References stay globally unique through transaction_references below, which
+-- still rejects a Snowflake reference reissued after a clock rollback.
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+
+CREATE TABLE transactions (
+    id BIGINT NOT NULL DEFAULT nextval('transaction_id_seq'),
+    transaction_reference VARCHAR(255) NOT NULL,
+    from_account_id BIGINT,
+    to_account_id BIGINT,
+    user_id BIGINT NOT NULL,
+    transaction_type VARCHAR(32) NOT NULL,
+    transaction_status VARCHAR(32) NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    currency VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    failure_reason VARCHAR(255),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    processed_at TIMESTAMP
+) PARTITION BY RANGE (created_at);
+
+-- One row per reference ever written to transactions, filled by a trigger. Rows stay when their
+-- transaction is archived or deleted, so a reference can never be issued twice.
+CREATE TABLE IF NOT EXISTS transaction_references (
+    transaction_reference VARCHAR(255) PRIMARY KEY,
+    transaction_id BIGINT NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION register_transaction_reference() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO transaction_references (transaction_reference, transaction_id)
+    VALUES (NEW.transaction_reference, NEW.id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_transactions_reference AFTER INSERT ON transactions
+    FOR EACH ROW EXECUTE FUNCTION register_transaction_reference();
+
+-- Idempotent, so TransactionPartitionMaintenance can call it for months that may already exist.
+-- Postgres refuses to create a partition while the default partition holds rows for its range, so
+-- any such rows are moved out first and re-inserted into the new partition; their reference rows
+-- are dropped and written again by the trigger. Runs in the caller's transaction and locks
+-- transactions_default while it does.
+CREATE OR REPLACE FUNCTION create_transactions_partition(month_start DATE) RETURNS TEXT AS $$
+DECLARE
+    first_day DATE := date_trunc('month', month_start)::date;
+    next_month DATE := (first_day + INTERVAL '1 month')::date;
+    partition_name TEXT := 'transactions_' || to_char(first_day, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    CREATE TEMP TABLE transactions_moving AS
+        SELECT * FROM transactions_default WHERE created_at >= first_day AND created_at < next_month;
+    DELETE FROM transactions_default WHERE created_at >= first_day AND created_at < next_month;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, first_day, next_month);
+
+    DELETE FROM transaction_references r USING transactions_moving m
+        WHERE r.transaction_reference = m.transaction_reference;
+    INSERT INTO transactions SELECT * FROM transactions_moving;
+    DROP TABLE transactions_moving;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Catches rows outside every monthly partition; maintenance keeps months ahead so it normally
+-- stays empty, and create_transactions_partition moves out whatever lands here
+CREATE TABLE IF NOT EXISTS transactions_default PARTITION OF transactions DEFAULT;
+
+DO $$
+DECLARE
+    month DATE := date_trunc('month', COALESCE(
+        (SELECT MIN(COALESCE(created_at, updated_at)) FROM transactions_unpartitioned), CURRENT_DATE))::date;
+BEGIN
+    WHILE month <= date_trunc('month', CURRENT_DATE + INTERVAL '3 months')::date LOOP
+        PERFORM create_transactions_partition(month);
+        month := (month + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO transactions (id, transaction_reference, from_account_id, to_account_id, user_id, transaction_type,
+                          transaction_status, amount, currency, description, failure_reason,
+                          created_at, updated_at, processed_at)
+SELECT id, transaction_reference, from_account_id, to_account_id, user_id, transaction_type,
+       transaction_status, amount, currency, description, failure_reason,
+       COALESCE(created_at, updated_at, CURRENT_TIMESTAMP), updated_at, processed_at
+FROM transactions_unpartitioned;
+
+-- The sequence is owned by the old id column and would be dropped along with it
+ALTER SEQUENCE transaction_id_seq OWNED BY NONE;
+DROP TABLE transactions_unpartitioned;
+ALTER SEQUENCE transaction_id_seq OWNED BY transactions.id;
+
+ALTER TABLE transactions ADD CONSTRAINT transactions_pkey PRIMARY KEY (id, created_at);
+ALTER TABLE transactions ADD CONSTRAINT uk_transactions_reference UNIQUE (transaction_reference, created_at);
+
+-- Same indexes as V2, now created once on the parent and inherited by every partition
+CREATE INDEX IF NOT EXISTS idx_transactions_created
+    ON transactions (created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_created
+    ON transactions (user_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_status
+    ON transactions (user_id, transaction_status);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_type_status
+    ON transactions (user_id, transaction_type, transaction_status) INCLUDE (amount);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_created
+    ON transactions (from_account_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_created
+    ON transactions (to_account_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_completed
+    ON transactions (from_account_id) INCLUDE (amount) WHERE transaction_status = 'COMPLETED';
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_completed
+    ON transactions (to_account_id) INCLUDE (amount) WHERE transaction_status = 'COMPLETED';
+
+CREATE INDEX IF NOT EXISTS idx_transactions_pending_created
+    ON transactions (created_at, id) WHERE transaction_status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_transactions_status_created
+    ON transactions (transaction_status, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_type_created
+    ON transactions (transaction_type, created_at DESC, id DESC);
+
+-- Cold tier for partitions past the retention window. Rows are never updated again, so pages are
+-- packed full and a BRIN index covers created_at at a fraction of a btree's size; user and account
+-- lookups keep small btrees for the archived history reads, id and reference ones for point reads.
+-- Text columns use the server's default_toast_compression rather than naming lz4, which only
+-- exists on builds compiled with it.
+CREATE TABLE IF NOT EXISTS transactions_archive (
+    id BIGINT NOT NULL,
+    transaction_reference VARCHAR(255) NOT NULL,
+    from_account_id BIGINT,
+    to_account_id BIGINT,
+    user_id BIGINT NOT NULL,
+    transaction_type VARCHAR(32) NOT NULL,
+    transaction_status VARCHAR(32) NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    currency VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    failure_reason VARCHAR(255),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    processed_at TIMESTAMP
+) WITH (fillfactor = 100);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_created_brin
+    ON transactions_archive USING BRIN (created_at);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_user_created
+    ON transactions_archive (user_id, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_from_account_created
+    ON transactions_archive (from_account_id, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_to_account_created
+    ON transactions_archive (to_account_id, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_id
+    ON transactions_archive (id);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_archive_reference
+    ON transactions_archive (transaction_reference);
@@ -0,0 +1,31 @@
+-- Token bucket for RedisTokenBucketStore
+-- KEYS[1] tokens, KEYS[2] last refill time (ms)
+-- ARGV[1] capacity, ARGV[2] refill per second, ARGV[3] now (ms), ARGV[4] tokens requested
+-- Returns { allowed (1/0), tokens left }
+local capacity = tonumber(ARGV[1])
+local rate = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local requested = tonumber(ARGV[4])
+
+local tokens = tonumber(redis.call("get", KEYS[1]))
+if tokens == nil then
+  tokens = capacity
+end
+local refilled_at = tonumber(redis.call("get", KEYS[2]))
+if refilled_at == nil then
+  refilled_at = now
+end
+
+tokens = math.min(capacity, tokens + math.max(0, now - refilled_at) / 1000 * rate)
+local allowed = 0
+if tokens >= requested then
+  tokens = tokens - requested
+  allowed = 1
+end
+
+-- Keep the keys only as long as a full refill takes
+local ttl = math.max(1, math.ceil(capacity / rate * 2))
+redis.call("setex", KEYS[1], ttl, tostring(tokens))
+redis.call("setex", KEYS[2], ttl, tostring(now))
+
+return { allowed, math.floor(tokens) }
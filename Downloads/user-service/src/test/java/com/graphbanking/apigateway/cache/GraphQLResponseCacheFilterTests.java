@@ -0,0 +1,178 @@
+package com.graphbanking.apigateway.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.apigateway.config.GatewayCacheProperties;
+import com.graphbanking.apigateway.graphql.GraphQLRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphQLResponseCacheFilterTests {
+
+    private static final String USER_QUERY = "query { user(id: 1) { name } }";
+    private static final String USERS_QUERY = "query { users { name } }";
+
+    private GatewayCacheProperties properties;
+    private GraphQLResponseCache cache;
+    private GraphQLResponseCacheFilter filter;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        properties = new GatewayCacheProperties();
+        properties.setFields(Map.of("user", Duration.ofMinutes(1), "users", Duration.ofMinutes(1)));
+        properties.setInvalidations(Map.of("updateUser", List.of("user"), "authenticate", List.of()));
+        cache = new GraphQLResponseCache(properties, new SimpleMeterRegistry());
+        filter = new GraphQLResponseCacheFilter(new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "cache", cache);
+        ReflectionTestUtils.setField(filter, "properties", properties);
+    }
+
+    @Test
+    void testRepeatedQueryIsServedFromCache() {
+        MockServerWebExchange first = exchange("user", "Bearer alice", USER_QUERY);
+        filter.filter(first, upstream("{\"data\":{\"user\":{\"name\":\"Alice\"}}}")).block();
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst("X-Cache"));
+
+        MockServerWebExchange second = exchange("user", "Bearer alice", USER_QUERY);
+        filter.filter(second, upstream("{\"data\":{\"user\":{\"name\":\"changed\"}}}")).block();
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("{\"data\":{\"user\":{\"name\":\"Alice\"}}}", second.getResponse().getBodyAsString().block());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testCallersDoNotShareEntries() {
+        filter.filter(exchange("user", "Bearer alice", USER_QUERY), upstream("{\"data\":{\"user\":{\"name\":\"Alice\"}}}")).block();
+
+        MockServerWebExchange other = exchange("user", "Bearer bob", USER_QUERY);
+        filter.filter(other, upstream("{\"data\":{\"user\":null}}")).block();
+        assertEquals("MISS", other.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("{\"data\":{\"user\":null}}", other.getResponse().getBodyAsString().block());
+
+        MockServerWebExchange anonymous = exchange("user", null, USER_QUERY);
+        filter.filter(anonymous, upstream("{\"data\":{\"user\":null}}")).block();
+        assertEquals("MISS", anonymous.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(3, upstreamCalls.get());
+    }
+
+    @Test
+    void testResponsesWithErrorsAreNotStored() {
+        filter.filter(exchange("user", "Bearer alice", USER_QUERY),
+                      upstream("{\"data\":null,\"errors\":[{\"message\":\"boom\"}]}")).block();
+        assertEquals(0, cache.size());
+
+        MockServerWebExchange retry = exchange("user", "Bearer alice", USER_QUERY);
+        filter.filter(retry, upstream("{\"data\":{\"user\":{\"name\":\"Alice\"}}}")).block();
+        assertEquals("MISS", retry.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void testMappedMutationEvictsOnlyItsFields() {
+        cacheUserAndUsers();
+
+        filter.filter(exchange("user", "Bearer alice", "mutation { updateUser(id: 1, name: \"A\") { id } }"),
+                      upstream("{\"data\":{\"updateUser\":{\"id\":\"1\"}}}")).block();
+
+        assertHit(USERS_QUERY);
+        assertMiss(USER_QUERY);
+    }
+
+    @Test
+    void testUnmappedMutationEvictsTheWholeService() {
+        cacheUserAndUsers();
+        filter.filter(exchange("transaction", "Bearer alice", USER_QUERY), upstream("{\"data\":{\"user\":null}}")).block();
+        assertEquals(3, cache.size());
+
+        filter.filter(exchange("user", "Bearer alice", "mutation { deleteUser(id: 1) }"),
+                      upstream("{\"data\":{\"deleteUser\":true}}")).block();
+
+        assertEquals(1, cache.size());
+        assertMiss(USERS_QUERY);
+    }
+
+    @Test
+    void testMutationMappedToNothingEvictsNothing() {
+        cacheUserAndUsers();
+
+        filter.filter(exchange("user", "Bearer alice", "mutation { authenticate(email: \"a@b.c\", password: \"x\") { token } }"),
+                      upstream("{\"data\":{\"authenticate\":{\"token\":\"t\"}}}")).block();
+
+        assertEquals(2, cache.size());
+        assertHit(USER_QUERY);
+    }
+
+    @Test
+    void testConfiguredEmptyInvalidationListIsKept() throws Exception {
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+            .load("application", new ClassPathResource("application.yml"));
+        MockEnvironment environment = new MockEnvironment();
+        sources.forEach(environment.getPropertySources()::addLast);
+
+        GatewayCacheProperties configured = Binder.get(environment)
+            .bind("graphbanking.gateway.cache", GatewayCacheProperties.class).get();
+
+        assertEquals(List.of(), configured.getInvalidations().get("authenticate"));
+    }
+
+    private void cacheUserAndUsers() {
+        filter.filter(exchange("user", "Bearer alice", USER_QUERY), upstream("{\"data\":{\"user\":{\"name\":\"Alice\"}}}")).block();
+        filter.filter(exchange("user", "Bearer alice", USERS_QUERY), upstream("{\"data\":{\"users\":[]}}")).block();
+        assertEquals(2, cache.size());
+    }
+
+    private void assertHit(String query) {
+        MockServerWebExchange exchange = exchange("user", "Bearer alice", query);
+        filter.filter(exchange, upstream("{\"data\":{}}")).block();
+        assertEquals("HIT", exchange.getResponse().getHeaders().getFirst("X-Cache"), query);
+    }
+
+    private void assertMiss(String query) {
+        MockServerWebExchange exchange = exchange("user", "Bearer alice", query);
+        filter.filter(exchange, upstream("{\"data\":{}}")).block();
+        assertEquals("MISS", exchange.getResponse().getHeaders().getFirst("X-Cache"), query);
+    }
+
+    private GatewayFilterChain upstream(String body) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+
+    private static MockServerWebExchange exchange(String service, String authorization, String query) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.post("/graphql").header("X-Service", service);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        GraphQLRequest graphQLRequest = new GraphQLRequest();
+        graphQLRequest.setQuery(query);
+        exchange.getAttributes().put(GraphQLRequest.ATTRIBUTE, graphQLRequest);
+        return exchange;
+    }
+}
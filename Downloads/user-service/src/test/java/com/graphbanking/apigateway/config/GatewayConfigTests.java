@@ -0,0 +1,44 @@
+package com.graphbanking.apigateway.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayConfigTests {
+
+    @Test
+    void testClientHeadersDoNotChangeTheKey() {
+        KeyResolver resolver = new GatewayConfig().clientKeyResolver(0);
+
+        assertEquals("ip:10.0.0.7", resolver.resolve(exchange("10.0.0.7", null, null)).block());
+        assertEquals("ip:10.0.0.7", resolver.resolve(exchange("10.0.0.7", "Bearer random-1", "1.2.3.4")).block());
+        assertEquals("ip:10.0.0.7", resolver.resolve(exchange("10.0.0.7", "Bearer random-2", "5.6.7.8")).block());
+    }
+
+    @Test
+    void testForwardedForIsOnlyReadUpToTrustedProxies() {
+        KeyResolver resolver = new GatewayConfig().clientKeyResolver(1);
+
+        // The load balancer appends the address it saw; the client's own entry further left is ignored
+        assertEquals("ip:203.0.113.9", resolver.resolve(exchange("10.0.0.2", null, "1.2.3.4, 203.0.113.9")).block());
+        assertEquals("ip:10.0.0.2", resolver.resolve(exchange("10.0.0.2", null, null)).block());
+    }
+
+    private static MockServerWebExchange exchange(String remoteAddress, String authorization, String forwardedFor) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.post("/graphql")
+            .remoteAddress(new InetSocketAddress(remoteAddress, 40000));
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        if (forwardedFor != null) {
+            request.header("X-Forwarded-For", forwardedFor);
+        }
+        return MockServerWebExchange.from(request);
+    }
+}
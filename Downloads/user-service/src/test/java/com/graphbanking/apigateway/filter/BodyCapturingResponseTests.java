@@ -0,0 +1,77 @@
+package com.graphbanking.apigateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BodyCapturingResponseTests {
+
+    @Test
+    void testBodyWithinTheCapIsCaptured() {
+        MockServerHttpResponse original = new MockServerHttpResponse();
+        AtomicReference<String> captured = new AtomicReference<>();
+        AtomicBoolean overflowed = new AtomicBoolean();
+        BodyCapturingResponse response = new BodyCapturingResponse(original, 10,
+            body -> captured.set(new String(body, StandardCharsets.UTF_8)), () -> overflowed.set(true));
+
+        response.writeWith(chunks(original, "abc", "def")).block();
+
+        assertEquals("abcdef", captured.get());
+        assertFalse(overflowed.get());
+        assertEquals("abcdef", original.getBodyAsString().block());
+    }
+
+    @Test
+    void testBodyGrowingPastTheCapIsStreamed() {
+        MockServerHttpResponse original = new MockServerHttpResponse();
+        AtomicReference<String> captured = new AtomicReference<>();
+        AtomicBoolean overflowed = new AtomicBoolean();
+        BodyCapturingResponse response = new BodyCapturingResponse(original, 5,
+            body -> captured.set(new String(body, StandardCharsets.UTF_8)), () -> overflowed.set(true));
+
+        response.writeWith(chunks(original, "abc", "def", "ghi")).block();
+
+        assertNull(captured.get());
+        assertTrue(overflowed.get());
+        assertEquals("abcdefghi", original.getBodyAsString().block());
+    }
+
+    @Test
+    void testDeclaredLengthPastTheCapIsStreamed() {
+        MockServerHttpResponse original = new MockServerHttpResponse();
+        original.getHeaders().setContentLength(100);
+        AtomicReference<String> captured = new AtomicReference<>();
+        AtomicBoolean overflowed = new AtomicBoolean();
+        BodyCapturingResponse response = new BodyCapturingResponse(original, 10,
+            body -> captured.set(new String(body, StandardCharsets.UTF_8)), () -> overflowed.set(true));
+
+        response.writeWith(chunks(original, "abc")).block();
+
+        assertNull(captured.get());
+        assertTrue(overflowed.get());
+        assertEquals("abc", original.getBodyAsString().block());
+    }
+
+    @Test
+    void testEmptyBodyIsCaptured() {
+        MockServerHttpResponse original = new MockServerHttpResponse();
+        AtomicReference<byte[]> captured = new AtomicReference<>();
+        BodyCapturingResponse response = new BodyCapturingResponse(original, 10, captured::set, () -> { });
+
+        response.writeWith(Flux.empty()).block();
+
+        assertArrayEquals(new byte[0], captured.get());
+    }
+
+    private static Flux<DataBuffer> chunks(MockServerHttpResponse response, String... parts) {
+        return Flux.fromArray(parts)
+            .map(part -> response.bufferFactory().wrap(part.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.graphbanking.apigateway.filter;
+
+import com.graphbanking.apigateway.config.UpstreamProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ProfiledNettyRoutingFilterTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRoutesUseTheClientOfTheirProfile() throws Exception {
+        UpstreamProperties.Profile slow = new UpstreamProperties.Profile();
+        slow.setMaxConnections(7);
+        UpstreamProperties upstream = new UpstreamProperties();
+        upstream.setProfiles(Map.of("slow", slow));
+        upstream.setRoutes(Map.of("reports", "slow"));
+
+        HttpClient gatewayClient = HttpClient.create();
+        List<ConnectionProvider> pools = new CopyOnWriteArrayList<>();
+        ProfiledNettyRoutingFilter filter = new ProfiledNettyRoutingFilter(gatewayClient, mock(ObjectProvider.class),
+            new HttpClientProperties(), upstream, provider -> {
+                pools.add(provider);
+                return HttpClient.create(provider);
+            });
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/reports"));
+
+        try {
+            HttpClient reports = filter.getHttpClient(route("reports"), exchange);
+            assertNotSame(gatewayClient, reports);
+            assertSame(reports, filter.getHttpClient(route("reports"), exchange));
+            assertEquals(1, pools.size());
+            assertEquals(7, pools.get(0).maxConnections());
+
+            assertSame(gatewayClient, filter.getHttpClient(route("users"), exchange));
+            assertEquals(1, pools.size());
+        } finally {
+            filter.destroy();
+        }
+    }
+
+    private static Route route(String id) {
+        return Route.async().id(id).uri("http://localhost:8081").predicate(exchange -> true).build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.graphbanking.apigateway.graphql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphQLDocumentTests {
+
+    @Test
+    void testParsesOperationTypeNameAndRootFields() {
+        GraphQLDocument document = GraphQLDocument.parse(
+            "query UserPage($id: ID!, $first: Int = 20) @live {\n" +
+            "  me: user(id: $id) { id name }\n" +
+            "  transactionsByUserId(userId: $id, first: $first) { edges { node { id } } }\n" +
+            "}");
+
+        GraphQLDocument.Operation operation = document.operation("UserPage");
+        assertNotNull(operation);
+        assertEquals(GraphQLDocument.OperationType.QUERY, operation.getType());
+        assertEquals(List.of("user", "transactionsByUserId"), operation.getRootFields());
+    }
+
+    @Test
+    void testShorthandQueryAndOperationSelection() {
+        GraphQLDocument shorthand = GraphQLDocument.parse("{ users { id } }");
+        assertEquals(GraphQLDocument.OperationType.QUERY, shorthand.operation(null).getType());
+
+        GraphQLDocument document = GraphQLDocument.parse(
+            "query A { users { id } } mutation B { deleteUser(id: 1) }");
+        assertNull(document.operation(null));
+        assertEquals(GraphQLDocument.OperationType.MUTATION, document.operation("B").getType());
+        assertEquals(List.of("deleteUser"), document.operation("B").getRootFields());
+        assertNull(document.operation("C"));
+    }
+
+    @Test
+    void testRootFragmentsHaveUnknownRootFields() {
+        GraphQLDocument document = GraphQLDocument.parse(
+            "query { ...Root } fragment Root on Query { users { id } }");
+        assertNull(document.operation(null).getRootFields());
+    }
+
+    @Test
+    void testNormalizedFormIgnoresFormatting() {
+        GraphQLDocument compact = GraphQLDocument.parse("query Q{user(id:\"1, 2\"){id,name}}");
+        GraphQLDocument formatted = GraphQLDocument.parse(
+            "# fetch one user\nquery Q {\n  user(id: \"1, 2\") {\n    id\n    name\n  }\n}\n");
+        assertEquals(compact.getNormalized(), formatted.getNormalized());
+        assertNotEquals(compact.getNormalized(), GraphQLDocument.parse("query Q { user(id: \"1 2\") { id name } }").getNormalized());
+    }
+
+    @Test
+    void testRejectsMalformedDocuments() {
+        assertThrows(IllegalArgumentException.class, () -> GraphQLDocument.parse("query { users { id }"));
+        assertThrows(IllegalArgumentException.class, () -> GraphQLDocument.parse("query { user(id: \"1) { id } }"));
+        assertThrows(IllegalArgumentException.class, () -> GraphQLDocument.parse("fragment F on Query { users { id } }"));
+    }
+}
@@ -0,0 +1,160 @@
+package com.graphbanking.apigateway.limit;
+
+import com.graphbanking.apigateway.controller.FallbackController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.DispatcherHandler;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyFilterTests {
+
+    private static final int LIMIT = 2;
+
+    private AnnotationConfigApplicationContext fallbacks;
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyFilter filter;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        fallbacks = new AnnotationConfigApplicationContext(FallbackConfig.class);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AdaptiveConcurrencyFilter(fallbacks.getBeanProvider(DispatcherHandler.class), meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "initialLimit", LIMIT);
+        ReflectionTestUtils.setField(filter, "minLimit", 1);
+        ReflectionTestUtils.setField(filter, "maxLimit", 10);
+        ReflectionTestUtils.setField(filter, "tolerance", 1.5);
+        ReflectionTestUtils.setField(filter, "smoothing", 0.2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fallbacks.close();
+    }
+
+    @Test
+    void testRequestsOverTheLimitAreShedToTheFallback() {
+        Disposable held = Disposables.composite(hold("user-service", LIMIT), hold("reports", LIMIT));
+        try {
+            MockServerWebExchange shed = exchange("user-service", MockServerHttpRequest.get("/api/users/1"));
+            filter.filter(shed, upstream()).block();
+
+            assertEquals(0, upstreamCalls.get());
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, shed.getResponse().getStatusCode());
+            assertTrue(shed.getResponse().getBodyAsString().block().contains("User Service is currently unavailable"));
+            assertEquals(1, meterRegistry.get("gateway.concurrency.rejected").tag("route", "user-service").counter().count());
+
+            // Routes without a fallback endpoint get a bare 503
+            MockServerWebExchange bare = exchange("reports", MockServerHttpRequest.get("/reports"));
+            filter.filter(bare, upstream()).block();
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, bare.getResponse().getStatusCode());
+            assertEquals(0, upstreamCalls.get());
+        } finally {
+            held.dispose();
+        }
+    }
+
+    @Test
+    void testWebSocketUpgradesBypassTheLimiter() {
+        Disposable held = hold("user-service", LIMIT);
+        try {
+            MockServerWebExchange upgrade = exchange("user-service", MockServerHttpRequest.get("/graphql")
+                .header(HttpHeaders.UPGRADE, "websocket").header(HttpHeaders.CONNECTION, "Upgrade"));
+            filter.filter(upgrade, upstream()).block();
+
+            assertEquals(1, upstreamCalls.get());
+            assertEquals(HttpStatus.OK, upgrade.getResponse().getStatusCode());
+            assertEquals(LIMIT, inflight("user-service"));
+        } finally {
+            held.dispose();
+        }
+    }
+
+    @Test
+    void testCancelledRequestsReleaseTheirSlot() {
+        Disposable held = hold("user-service", LIMIT);
+        assertEquals(LIMIT, inflight("user-service"));
+
+        held.dispose();
+
+        assertEquals(0, inflight("user-service"));
+        MockServerWebExchange next = exchange("user-service", MockServerHttpRequest.get("/api/users/1"));
+        filter.filter(next, upstream()).block();
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testFailedRequestsReleaseTheirSlot() {
+        for (int i = 0; i < LIMIT * 3; i++) {
+            MockServerWebExchange failing = exchange("user-service", MockServerHttpRequest.get("/api/users/1"));
+            Mono<Void> result = filter.filter(failing, exchange -> Mono.error(new IllegalStateException("upstream failed")));
+            assertThrows(IllegalStateException.class, result::block);
+        }
+
+        assertEquals(0, inflight("user-service"));
+        MockServerWebExchange next = exchange("user-service", MockServerHttpRequest.get("/api/users/1"));
+        filter.filter(next, upstream()).block();
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    // Starts requests on the route that never get an answer and hold their slots until disposed
+    private Disposable hold(String routeId, int count) {
+        Disposable.Composite held = Disposables.composite();
+        for (int i = 0; i < count; i++) {
+            held.add(filter.filter(exchange(routeId, MockServerHttpRequest.get("/slow")), exchange -> Mono.never()).subscribe());
+        }
+        return held;
+    }
+
+    private double inflight(String routeId) {
+        return meterRegistry.get("gateway.concurrency.inflight").tag("route", routeId).gauge().value();
+    }
+
+    private GatewayFilterChain upstream() {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    private static MockServerWebExchange exchange(String routeId, MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        Route route = Route.async().id(routeId).uri("http://localhost:8081").predicate(e -> true).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    @Configuration
+    @EnableWebFlux
+    @Import(FallbackController.class)
+    static class FallbackConfig {
+
+        @Bean
+        DispatcherHandler webHandler() {
+            return new DispatcherHandler();
+        }
+    }
+}
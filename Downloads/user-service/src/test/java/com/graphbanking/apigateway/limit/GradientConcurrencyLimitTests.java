@@ -0,0 +1,52 @@
+package com.graphbanking.apigateway.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientConcurrencyLimitTests {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void testLimitGrowsWhileLatencyIsSteady() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 4, 500, 1.5, 0.2);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(10 * MILLIS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() > 100, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void testLimitDoesNotGrowWhenUnderused() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 4, 500, 1.5, 0.2);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(10 * MILLIS, 2, false);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyClimbs() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(100, 4, 500, 1.5, 0.2);
+        for (int i = 0; i < 600; i++) {
+            limit.onSample(10 * MILLIS, 100, false);
+        }
+        int steady = limit.getLimit();
+        for (int i = 0; i < 30; i++) {
+            limit.onSample(80 * MILLIS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < steady / 2, "limit " + limit.getLimit() + " was " + steady);
+    }
+
+    @Test
+    void testDropsBackOffDownToTheMinimum() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 4, 500, 1.5, 0.2);
+        limit.onSample(10 * MILLIS, 20, true);
+        assertEquals(18, limit.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(10 * MILLIS, 20, true);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+}
@@ -0,0 +1,40 @@
+package com.graphbanking.apigateway.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalTokenBucketStoreTests {
+
+    @Test
+    void testBurstIsAllowedThenLimited() {
+        LocalTokenBucketStore store = new LocalTokenBucketStore(100);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(store.tryConsume("route:client", 5, 0.001, 1).block().isAllowed());
+        }
+        TokenBucketStore.Decision denied = store.tryConsume("route:client", 5, 0.001, 1).block();
+        assertFalse(denied.isAllowed());
+        assertEquals(0, denied.getRemaining());
+
+        // Buckets are per key
+        assertTrue(store.tryConsume("route:other", 5, 0.001, 1).block().isAllowed());
+    }
+
+    @Test
+    void testBucketRefills() throws InterruptedException {
+        LocalTokenBucketStore store = new LocalTokenBucketStore(100);
+        assertTrue(store.tryConsume("route:client", 1, 50, 1).block().isAllowed());
+        assertFalse(store.tryConsume("route:client", 1, 50, 1).block().isAllowed());
+        Thread.sleep(50);
+        assertTrue(store.tryConsume("route:client", 1, 50, 1).block().isAllowed());
+    }
+
+    @Test
+    void testDebitsMayGoNegative() {
+        TokenBucket bucket = new TokenBucket(10, 0.001);
+        bucket.consume(25);
+        assertTrue(bucket.available() < -14);
+        assertFalse(bucket.tryConsume(1));
+        assertTrue(bucket.secondsUntil(1) > 0);
+    }
+}
@@ -0,0 +1,240 @@
+package com.graphbanking.transactionservice;
+
+import com.graphbanking.common.datasource.ReadYourWritesTracker;
+import com.graphbanking.common.datasource.ReplicaLagMonitor;
+import com.graphbanking.common.datasource.ReplicaRoutingDataSource;
+import com.graphbanking.transactionservice.cache.TerminalTransactionCache;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.userservice.cache.SharedCacheTier;
+import com.graphbanking.userservice.cache.UserCache;
+import com.graphbanking.userservice.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A second in-memory H2 database stands in for the replica; SELECT DATABASE() tells the two apart.
+// The replica's lag is read from a table in the replica itself so tests can make it fall behind; a
+// NULL lag stands for a replica whose WAL receiver is disconnected.
+@SpringBootTest(properties = {
+    "graphbanking.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+    "graphbanking.datasource.replica.lag-query=SELECT CASE WHEN COUNT(*) > COUNT(lag_seconds) THEN NULL " +
+        "ELSE COALESCE(MAX(lag_seconds), 0) END FROM replica_lag",
+    "graphbanking.datasource.replica.max-lag-ms=1000",
+    "graphbanking.datasource.replica.lag-check-interval-ms=60000"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private TerminalTransactionCache terminalCache;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    private String primaryName;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag_seconds DOUBLE PRECISION)");
+        replicaJdbc.update("DELETE FROM replica_lag");
+        lagMonitor.probe();
+        primaryName = databaseName(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplica() {
+        assertEquals("REPLICA", databaseName(true));
+        assertNotEquals("REPLICA", primaryName);
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        new JdbcTemplate(replica).update("INSERT INTO replica_lag (lag_seconds) VALUES (30)");
+        lagMonitor.probe();
+
+        assertEquals(primaryName, databaseName(true));
+    }
+
+    @Test
+    void testDisconnectedReplicaFallsBackToPrimary() {
+        new JdbcTemplate(replica).update("INSERT INTO replica_lag (lag_seconds) VALUES (NULL)");
+        lagMonitor.probe();
+
+        assertEquals(primaryName, databaseName(true));
+    }
+
+    @Test
+    void testReadsFollowTheClientsOwnWrites() {
+        MockHttpServletResponse response = asClient(new MockHttpServletRequest());
+        databaseName(false);
+        String marker = response.getHeader(ReadYourWritesTracker.HEADER);
+        assertNotNull(marker);
+        assertEquals(marker, response.getCookie(ReadYourWritesTracker.COOKIE).getValue());
+        assertEquals(primaryName, databaseName(true));
+
+        // The marker travels with the client, so any instance honours it
+        MockHttpServletRequest withHeader = new MockHttpServletRequest();
+        withHeader.addHeader(ReadYourWritesTracker.HEADER, marker);
+        asClient(withHeader);
+        assertEquals(primaryName, databaseName(true));
+
+        MockHttpServletRequest withCookie = new MockHttpServletRequest();
+        withCookie.setCookies(new Cookie(ReadYourWritesTracker.COOKIE, marker));
+        asClient(withCookie);
+        assertEquals(primaryName, databaseName(true));
+
+        asClient(new MockHttpServletRequest());
+        assertEquals("REPLICA", databaseName(true));
+    }
+
+    @Test
+    void testStaleOrFutureMarkersAreIgnored() {
+        for (long offset : new long[] {-60_000, 60_000}) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader(ReadYourWritesTracker.HEADER, Long.toString(System.currentTimeMillis() + offset));
+            asClient(request);
+            assertEquals("REPLICA", databaseName(true));
+        }
+    }
+
+    @Test
+    void testTerminalCacheLoadsFromPrimary() {
+        Transaction completed = new Transaction("TXN-REPLICA", 1L, TransactionType.DEPOSIT, new BigDecimal("1.00"));
+        completed.setId(-100L);
+        completed.setTransactionStatus(TransactionStatus.COMPLETED);
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+
+        // A miss fetches the transaction's connection from the primary and is admitted
+        String loadedFrom = template.execute(status -> {
+            String[] database = new String[1];
+            terminalCache.getById(completed.getId(), () -> {
+                database[0] = jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+                return Optional.of(completed);
+            });
+            return database[0];
+        });
+        assertEquals(primaryName, loadedFrom);
+        assertEquals(1, terminalCache.size());
+        terminalCache.evict(completed.getId());
+
+        // Once the transaction already reads from the replica, the row is returned but not admitted
+        template.execute(status -> {
+            assertEquals("REPLICA", jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+            assertTrue(ReplicaRoutingDataSource.isReadingFromReplica());
+            return terminalCache.getById(completed.getId(), () -> Optional.of(completed));
+        });
+        assertFalse(ReplicaRoutingDataSource.isReadingFromReplica());
+        assertEquals(0, terminalCache.size());
+    }
+
+    // The user service shares the routing; its cache is built by hand since this is not its context
+    @Test
+    void testUserCacheLoadsFromPrimary() {
+        UserCache userCache = new UserCache(new StaticListableBeanFactory().getBeanProvider(SharedCacheTier.class),
+                                            new SimpleMeterRegistry(), 100, 60, 600);
+        User user = user(-100L, "replica@example.com");
+        User other = user(-101L, "replica-other@example.com");
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+
+        // Misses fetch the transaction's connection from the primary and are admitted
+        String loadedFrom = template.execute(status -> {
+            String[] database = new String[1];
+            userCache.getById(user.getId(), () -> {
+                database[0] = jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+                return Optional.of(user);
+            });
+            return database[0];
+        });
+        assertEquals(primaryName, loadedFrom);
+        String batchLoadedFrom = template.execute(status -> {
+            String[] database = new String[1];
+            userCache.getAllById(List.of(other.getId()), ids -> {
+                database[0] = jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+                return List.of(other);
+            });
+            return database[0];
+        });
+        assertEquals(primaryName, batchLoadedFrom);
+        assertSame(user, userCache.getById(user.getId(), () -> fail("should be served from the cache")).get());
+        assertSame(other, userCache.getByEmail(other.getEmail(), () -> fail("should be served from the cache")).get());
+        userCache.evict(user.getId(), user.getEmail());
+        userCache.evict(other.getId(), other.getEmail());
+
+        // Once the transaction already reads from the replica, users are returned but not admitted
+        template.execute(status -> {
+            assertEquals("REPLICA", jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+            userCache.getById(user.getId(), () -> Optional.of(user));
+            return userCache.getAllById(List.of(other.getId()), ids -> List.of(other));
+        });
+        AtomicInteger loads = new AtomicInteger();
+        userCache.getById(user.getId(), () -> {
+            loads.incrementAndGet();
+            return Optional.of(user);
+        });
+        userCache.getAllById(List.of(other.getId()), ids -> {
+            loads.incrementAndGet();
+            return List.of(other);
+        });
+        assertEquals(2, loads.get());
+    }
+
+    private static User user(Long id, String email) {
+        User user = new User("Replica User", email, "password123");
+        user.setId(id);
+        return user;
+    }
+
+    private String databaseName(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+    }
+
+    private static MockHttpServletResponse asClient(MockHttpServletRequest request) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return response;
+    }
+}
@@ -0,0 +1,144 @@
+package com.graphbanking.transactionservice;
+
+import com.graphbanking.transactionservice.cache.TerminalTransactionCache;
+import com.graphbanking.transactionservice.cache.TerminalTransactionCacheInvalidator;
+import com.graphbanking.transactionservice.event.OutboxEvent;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.repository.TransactionOutboxRepository;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import com.graphbanking.transactionservice.service.OutboxRelay;
+import com.graphbanking.transactionservice.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rows read inside a read-write transaction are never admitted, so these tests commit for real
+// and remove their rows afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+class TerminalTransactionCacheTests {
+
+    private static final long USER_ID = 9012L;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TerminalTransactionCache terminalCache;
+
+    @Autowired
+    private TerminalTransactionCacheInvalidator invalidator;
+
+    @Autowired
+    private TransactionOutboxRepository outboxRepository;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll(transactionRepository.findByUserId(USER_ID));
+        // Completed rows fed the running totals; leave nothing behind for tests that reconcile them
+        jdbcTemplate.update("DELETE FROM user_transaction_totals WHERE user_id = ?", USER_ID);
+    }
+
+    @Test
+    void testOnlyTerminalRowsAreCached() {
+        Transaction pending = transactionService.createTransaction(
+            USER_ID, TransactionType.DEPOSIT, new BigDecimal("10.00"), "USD", null);
+        int sizeBefore = terminalCache.size();
+
+        transactionService.getTransactionByReference(pending.getTransactionReference());
+        assertEquals(sizeBefore, terminalCache.size());
+
+        transactionService.completeTransaction(pending.getId());
+        Transaction loaded = transactionService.getTransactionByReference(pending.getTransactionReference()).get();
+        assertEquals(sizeBefore + 1, terminalCache.size());
+
+        double hitsBefore = hits();
+        Transaction byReference = transactionService.getTransactionByReference(pending.getTransactionReference()).get();
+        Transaction byId = transactionService.getTransactionById(pending.getId()).get();
+        assertEquals(hitsBefore + 2, hits());
+
+        for (Transaction cached : new Transaction[] {byReference, byId}) {
+            assertNotSame(loaded, cached);
+            assertEquals(loaded.getId(), cached.getId());
+            assertEquals(TransactionStatus.COMPLETED, cached.getTransactionStatus());
+            assertEquals(0, loaded.getAmount().compareTo(cached.getAmount()));
+            assertEquals(loaded.getCreatedAt(), cached.getCreatedAt());
+            assertEquals(loaded.getProcessedAt(), cached.getProcessedAt());
+        }
+    }
+
+    @Test
+    void testStatusChangeEvictsCachedRow() {
+        Transaction transaction = transactionService.createTransaction(
+            USER_ID, TransactionType.PAYMENT, new BigDecimal("25.00"), "USD", "Refunded later");
+        transactionService.failTransaction(transaction.getId(), "Card declined");
+        assertEquals(TransactionStatus.FAILED,
+            transactionService.getTransactionById(transaction.getId()).get().getTransactionStatus());
+
+        transactionService.updateTransactionStatus(transaction.getId(), TransactionStatus.PENDING, null);
+
+        assertEquals(TransactionStatus.PENDING,
+            transactionService.getTransactionById(transaction.getId()).get().getTransactionStatus());
+    }
+
+    // Another instance fails a completed transaction: this instance only learns of it through the
+    // outbox stream
+    @Test
+    void testChangeOnAnotherInstanceEvictsCachedRow() {
+        Transaction transaction = transactionService.createTransaction(
+            USER_ID, TransactionType.DEPOSIT, new BigDecimal("40.00"), "USD", null);
+        transactionService.completeTransaction(transaction.getId());
+        transactionService.getTransactionById(transaction.getId());
+
+        jdbcTemplate.update("UPDATE transactions SET transaction_status = 'FAILED' WHERE id = ?", transaction.getId());
+        outboxRepository.insert(transaction.getId(), OutboxEvent.TRANSACTION_STATUS_CHANGED,
+            "{\"previousStatus\":\"COMPLETED\",\"newStatus\":\"FAILED\"}");
+        relay.relay();
+        invalidator.follow();
+
+        assertEquals(TransactionStatus.FAILED,
+            transactionService.getTransactionById(transaction.getId()).get().getTransactionStatus());
+    }
+
+    @Test
+    void testExpiredRowsAreReloaded() {
+        TerminalTransactionCache expiring = new TerminalTransactionCache(new SimpleMeterRegistry(), 10, 0);
+        Transaction transaction = new Transaction("TXN-TTL", USER_ID, TransactionType.DEPOSIT, new BigDecimal("1.00"));
+        transaction.setId(1L);
+        transaction.setTransactionStatus(TransactionStatus.COMPLETED);
+
+        expiring.getById(1L, () -> Optional.of(transaction));
+        assertEquals(1, expiring.size());
+
+        assertTrue(expiring.getById(1L, Optional::empty).isEmpty());
+        assertEquals(0, expiring.size());
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "transactions.terminal").tag("result", "hit").counter().count();
+    }
+}
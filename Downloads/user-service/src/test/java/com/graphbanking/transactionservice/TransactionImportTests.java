@@ -0,0 +1,162 @@
+package com.graphbanking.transactionservice;
+
+import com.graphbanking.transactionservice.dto.TransactionBatchResult;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import com.graphbanking.transactionservice.service.TransactionImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Imports commit chunk by chunk in their own transactions, so these tests are not @Transactional
+// and clean up the rows of their dedicated user afterwards
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TransactionImportTests {
+
+    private static final long USER_ID = 9009L;
+    private static final String IMPORTER = "Basic " +
+        Base64.getEncoder().encodeToString("importer:import-secret".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private TransactionImportService importService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class ImportAccount {
+        @Bean
+        UserDetailsService importAccount(PasswordEncoder passwordEncoder) {
+            return new InMemoryUserDetailsManager(
+                User.withUsername("importer").password(passwordEncoder.encode("import-secret")).roles("IMPORT").build());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll(transactionRepository.findByUserId(USER_ID));
+        jdbcTemplate.update("DELETE FROM transaction_idempotency_keys WHERE user_id = ?", USER_ID);
+    }
+
+    @Test
+    void testBatchImportReportsRowErrors() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            rows.add(Map.of("userId", USER_ID, "type", "DEPOSIT", "amount", "10.00"));
+        }
+        rows.set(10, Map.of("userId", USER_ID, "type", "CHARGEBACK", "amount", "10.00"));
+        rows.set(20, Map.of("userId", USER_ID, "type", "PAYMENT", "amount", "0"));
+        rows.set(30, Map.of("type", "PAYMENT", "amount", "5.00"));
+
+        TransactionBatchResult result = importAll(rows);
+
+        assertEquals(2497, result.getCreated());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(11, 21, 31), result.getErrors().stream().map(e -> e.getRow()).toList());
+
+        List<Transaction> imported = transactionRepository.findByUserId(USER_ID);
+        assertEquals(2497, imported.size());
+        assertEquals(0, new BigDecimal("24970.00").compareTo(
+            imported.stream().map(Transaction::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
+    @Test
+    void testRetriedBatchHonoursIdempotencyKeys() {
+        List<Map<String, Object>> rows = List.of(
+            Map.of("userId", USER_ID, "type", "DEPOSIT", "amount", "10.00", "idempotencyKey", "settlement-1"),
+            Map.of("userId", USER_ID, "type", "DEPOSIT", "amount", "20.00", "idempotencyKey", "settlement-2"),
+            Map.of("userId", USER_ID, "type", "DEPOSIT", "amount", "30.00"));
+
+        assertEquals(3, importAll(rows).getCreated());
+        TransactionBatchResult retried = importAll(rows);
+
+        assertEquals(3, retried.getCreated());
+        assertEquals(4, transactionRepository.findByUserId(USER_ID).size());
+
+        TransactionBatchResult reused = importAll(List.of(
+            Map.of("userId", USER_ID, "type", "DEPOSIT", "amount", "99.00", "idempotencyKey", "settlement-1")));
+        assertEquals(1, reused.getFailed());
+        assertEquals(1, reused.getErrors().get(0).getRow());
+    }
+
+    @Test
+    void testCsvImportEndpoint() throws Exception {
+        String csv = "userId,type,amount,currency,description\n" +
+                     USER_ID + ",DEPOSIT,125.50,EUR,\"Settlement, batch 7\"\n" +
+                     "\n" +
+                     USER_ID + ",PAYMENT,abc,USD,Bad amount\n" +
+                     USER_ID + ",PAYMENT,20.00\n";
+
+        mockMvc.perform(post("/api/transactions/import").header(HttpHeaders.AUTHORIZATION, IMPORTER)
+                .contentType("text/csv").content(csv))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(1))
+            .andExpect(jsonPath("$.failed").value(2))
+            .andExpect(jsonPath("$.errors[0].row").value(4))
+            .andExpect(jsonPath("$.errors[1].row").value(5));
+
+        Transaction imported = transactionRepository.findByUserId(USER_ID).get(0);
+        assertEquals("EUR", imported.getCurrency());
+        assertEquals("Settlement, batch 7", imported.getDescription());
+    }
+
+    @Test
+    void testNdjsonImportEndpoint() throws Exception {
+        String ndjson = "{\"userId\": " + USER_ID + ", \"type\": \"DEPOSIT\", \"amount\": 42.00}\n" +
+                        "{not json}\n";
+
+        mockMvc.perform(post("/api/transactions/import").header(HttpHeaders.AUTHORIZATION, IMPORTER)
+                .contentType("application/x-ndjson").content(ndjson))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created").value(1))
+            .andExpect(jsonPath("$.failed").value(1));
+    }
+
+    @Test
+    void testImportEndpointRequiresAuthentication() throws Exception {
+        String csv = "userId,type,amount\n" + USER_ID + ",DEPOSIT,10.00\n";
+
+        mockMvc.perform(post("/api/transactions/import").contentType("text/csv").content(csv))
+            .andExpect(status().isUnauthorized());
+
+        assertTrue(transactionRepository.findByUserId(USER_ID).isEmpty());
+    }
+
+    private TransactionBatchResult importAll(List<Map<String, Object>> rows) {
+        TransactionImportService.BatchImport batch = importService.begin();
+        rows.forEach(batch::add);
+        return batch.finish();
+    }
+}
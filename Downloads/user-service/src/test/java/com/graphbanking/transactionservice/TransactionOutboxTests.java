@@ -0,0 +1,178 @@
+package com.graphbanking.transactionservice;
+
+import com.graphbanking.transactionservice.event.InProcessTransactionEventBroker;
+import com.graphbanking.transactionservice.event.OutboxEvent;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import com.graphbanking.transactionservice.service.OutboxRelay;
+import com.graphbanking.transactionservice.service.TransactionOutbox;
+import com.graphbanking.transactionservice.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The outbox is only meaningful across real commits and rollbacks, so these tests commit and
+// remove their rows afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionOutboxTests {
+
+    private static final long USER_ID = 9022L;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionOutbox outbox;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InProcessTransactionEventBroker broker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+    private Runnable unsubscribe;
+
+    @BeforeEach
+    void setUp() {
+        unsubscribe = broker.subscribe(received::add);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        unsubscribe.run();
+        for (Transaction transaction : transactionRepository.findByUserId(USER_ID)) {
+            jdbcTemplate.update("DELETE FROM transaction_outbox WHERE aggregate_id = ?", transaction.getId());
+            // Completed rows fed the running totals; leave nothing behind for tests that reconcile them
+            jdbcTemplate.update("DELETE FROM account_transaction_totals WHERE account_id IN (?, ?)",
+                                transaction.getFromAccountId(), transaction.getToAccountId());
+            transactionRepository.delete(transaction);
+        }
+        jdbcTemplate.update("DELETE FROM user_transaction_totals WHERE user_id = ?", USER_ID);
+    }
+
+    @Test
+    void testChangesAreRelayedInOrder() {
+        Transaction transfer = transactionService.createTransfer(
+            USER_ID, 901L, 902L, new BigDecimal("75.00"), "USD", "Rent");
+        transactionService.completeTransaction(transfer.getId());
+
+        relay.relay();
+
+        List<OutboxEvent> events = received.stream()
+            .filter(event -> event.getAggregateId().equals(transfer.getId()))
+            .toList();
+        assertEquals(2, events.size());
+        assertEquals(OutboxEvent.TRANSACTION_CREATED, events.get(0).getEventType());
+        assertEquals(OutboxEvent.TRANSACTION_STATUS_CHANGED, events.get(1).getEventType());
+        assertTrue(events.get(0).getId() < events.get(1).getId());
+        assertTrue(events.get(0).getPosition() < events.get(1).getPosition());
+        assertTrue(events.get(1).getPayload().contains("\"previousStatus\":\"PENDING\""));
+        assertTrue(events.get(1).getPayload().contains("\"newStatus\":\"COMPLETED\""));
+
+        assertEquals(0, relay.relay());
+        List<OutboxEvent> replayed = outbox.replay(events.get(0).getPosition() - 1, 1000).stream()
+            .filter(event -> event.getAggregateId().equals(transfer.getId()))
+            .toList();
+        assertEquals(events.stream().map(OutboxEvent::getId).toList(), replayed.stream().map(OutboxEvent::getId).toList());
+    }
+
+    // The first write takes the lower outbox id but commits last; replaying from the position of the
+    // second must still return it
+    @Test
+    void testLateCommitIsNotSkippedByReplay() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        CompletableFuture<Long> slow = CompletableFuture.supplyAsync(() -> template.execute(status -> {
+            Transaction transaction = transactionService.createTransaction(
+                USER_ID, TransactionType.DEPOSIT, new BigDecimal("1.00"), "USD", "Slow");
+            written.countDown();
+            await(release);
+            return transaction.getId();
+        }));
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+
+        Transaction fast = transactionService.createTransaction(
+            USER_ID, TransactionType.DEPOSIT, new BigDecimal("2.00"), "USD", "Fast");
+        relay.relay();
+        OutboxEvent fastEvent = received.stream()
+            .filter(event -> event.getAggregateId().equals(fast.getId()))
+            .findFirst().orElseThrow();
+
+        release.countDown();
+        Long slowId = slow.get(10, TimeUnit.SECONDS);
+        relay.relay();
+
+        List<OutboxEvent> replayed = outbox.replay(fastEvent.getPosition(), 1000);
+        OutboxEvent slowEvent = replayed.stream()
+            .filter(event -> event.getAggregateId().equals(slowId))
+            .findFirst().orElseThrow();
+        assertTrue(slowEvent.getId() < fastEvent.getId());
+        assertTrue(slowEvent.getPosition() > fastEvent.getPosition());
+    }
+
+    @Test
+    void testDeleteIsRecorded() {
+        Transaction transaction = transactionService.createTransaction(
+            USER_ID, TransactionType.DEPOSIT, new BigDecimal("10.00"), "USD", null);
+        transactionService.deleteTransaction(transaction.getId());
+
+        relay.relay();
+
+        assertEquals(List.of(OutboxEvent.TRANSACTION_CREATED, OutboxEvent.TRANSACTION_DELETED), received.stream()
+            .filter(event -> event.getAggregateId().equals(transaction.getId()))
+            .map(OutboxEvent::getEventType)
+            .toList());
+        jdbcTemplate.update("DELETE FROM transaction_outbox WHERE aggregate_id = ?", transaction.getId());
+    }
+
+    @Test
+    void testRolledBackChangeLeavesNoEvent() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        Long id = template.execute(status -> {
+            Transaction transaction = transactionService.createTransaction(
+                USER_ID, TransactionType.DEPOSIT, new BigDecimal("10.00"), "USD", null);
+            status.setRollbackOnly();
+            return transaction.getId();
+        });
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM transaction_outbox WHERE aggregate_id = ?", Integer.class, id));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
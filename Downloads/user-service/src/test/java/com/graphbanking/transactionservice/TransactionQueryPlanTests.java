@@ -0,0 +1,256 @@
+package com.graphbanking.transactionservice;
+
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checks that the SQL behind each TransactionRepository query is served by one of the
+// indexes created in db/transaction rather than by a full scan of the transactions table.
+// The statements explained are the ones the repository methods send, captured at the JDBC level.
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class TransactionQueryPlanTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final LocalDateTime YESTERDAY = NOW.minusDays(1);
+    private static final Pageable PAGE = PageRequest.of(0, 21);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private RecordingDataSource statementRecorder;
+
+    private DatabaseDriver database;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statementRecorder = (RecordingDataSource) dataSource;
+        database = DatabaseDriver.fromJdbcUrl(
+            JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), DatabaseMetaData::getURL));
+
+        List<Object[]> rows = new ArrayList<>();
+        String[] statuses = {"PENDING", "COMPLETED", "FAILED", "CANCELLED"};
+        String[] types = {"DEPOSIT", "WITHDRAWAL", "TRANSFER", "PAYMENT"};
+        for (int i = 0; i < 1000; i++) {
+            Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(2029, 1, 1, 0, 0).plusHours(i));
+            rows.add(new Object[] {
+                "PLAN-" + i, (long) (i % 50), (long) (i % 50 + 1), (long) (i % 100),
+                types[i % types.length], statuses[i % statuses.length], createdAt, createdAt
+            });
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO transactions (transaction_reference, from_account_id, to_account_id, user_id, " +
+            "transaction_type, transaction_status, amount, currency, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 10.00, 'USD', ?, ?)",
+            rows);
+
+        if (database == DatabaseDriver.POSTGRESQL) {
+            jdbcTemplate.execute("ANALYZE transactions");
+            // Tiny test tables are cheapest to scan sequentially; disabling seq scans makes the
+            // planner report whether a usable index exists at all
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        } else {
+            jdbcTemplate.execute("ANALYZE TABLE transactions");
+        }
+    }
+
+    @Test
+    void findByTransactionReferenceUsesIndex() {
+        assertIndexScans(() -> transactionRepository.findByTransactionReference("PLAN-42"));
+    }
+
+    @Test
+    void findByIdempotencyKeyUsesIndexes() {
+        assertIndexScans(() -> transactionRepository.findByIdempotencyKey(7L, "plan-key"));
+    }
+
+    @Test
+    void findByUserUsesIndexes() {
+        assertIndexScans(() -> transactionRepository.findByUserId(7L));
+        assertIndexScans(() -> transactionRepository.findByUserIdAndTransactionStatus(7L, TransactionStatus.COMPLETED));
+        assertIndexScans(() -> transactionRepository.findByUserIdAndTransactionType(7L, TransactionType.DEPOSIT));
+        assertIndexScans(() -> transactionRepository.findByUserIdAndDateRange(7L, YESTERDAY, NOW));
+    }
+
+    @Test
+    void findByAccountUsesIndexes() {
+        assertIndexScans(() -> transactionRepository.findByFromAccountId(3L));
+        assertIndexScans(() -> transactionRepository.findByToAccountId(3L));
+        assertIndexScans(() -> transactionRepository.findByAccountId(3L));
+        assertIndexScans(() -> transactionRepository.findByAccountIdAndDateRange(3L, YESTERDAY, NOW));
+    }
+
+    @Test
+    void findByStatusUsesIndex() {
+        assertIndexScans(() -> transactionRepository.findByTransactionStatus(TransactionStatus.FAILED));
+        assertIndexScans(() -> transactionRepository.countByTransactionStatus(TransactionStatus.FAILED));
+    }
+
+    @Test
+    void workQueueQueriesUseIndexes() {
+        assertIndexScans(() -> transactionRepository.claimPendingIds(100));
+        assertIndexScans(() -> transactionRepository.findStaleClaims(TransactionStatus.PROCESSING, NOW));
+        assertIndexScans(() -> transactionRepository.findStaleTransactions(NOW));
+    }
+
+    @Test
+    void aggregatesUseIndexes() {
+        assertIndexScans(() -> transactionRepository.countByUserIdAndStatus(7L, TransactionStatus.COMPLETED));
+        assertIndexScans(() -> transactionRepository.getTotalsByUserId(7L));
+        assertIndexScans(() -> transactionRepository.getTotalAmountByUserIdAndType(7L, TransactionType.DEPOSIT));
+        assertIndexScans(() -> transactionRepository.getTotalDebitsByAccountId(3L));
+        assertIndexScans(() -> transactionRepository.getTotalCreditsByAccountId(3L));
+    }
+
+    @Test
+    void keysetPagesUseIndexes() {
+        assertIndexScans(() -> transactionRepository.findAllByOrderByCreatedAtDescIdDesc(PAGE));
+        assertIndexScans(() -> transactionRepository.findPageBefore(NOW, 500L, PAGE));
+        assertIndexScans(() -> transactionRepository.findByUserIdOrderByCreatedAtDescIdDesc(7L, PAGE));
+        assertIndexScans(() -> transactionRepository.findPageByUserIdBefore(7L, NOW, 500L, PAGE));
+        assertIndexScans(() -> transactionRepository.findByTransactionStatusOrderByCreatedAtDescIdDesc(TransactionStatus.FAILED, PAGE));
+        assertIndexScans(() -> transactionRepository.findPageByStatusBefore(TransactionStatus.FAILED, NOW, 500L, PAGE));
+        assertIndexScans(() -> transactionRepository.findByTransactionTypeOrderByCreatedAtDescIdDesc(TransactionType.DEPOSIT, PAGE));
+        assertIndexScans(() -> transactionRepository.findPageByTypeBefore(TransactionType.DEPOSIT, NOW, 500L, PAGE));
+        assertIndexScans(() -> transactionRepository.findPageByAccountId(3L, 21));
+        assertIndexScans(() -> transactionRepository.findPageByAccountIdBefore(3L, NOW, 500L, 21));
+    }
+
+    // Runs the repository method, then explains every statement it sent with the values it bound
+    private void assertIndexScans(Runnable query) {
+        List<RecordingDataSource.Statement> statements = statementRecorder.record(query);
+        assertFalse(statements.isEmpty(), "No statement was executed");
+        for (RecordingDataSource.Statement statement : statements) {
+            String plan = String.join("\n",
+                jdbcTemplate.queryForList("EXPLAIN " + statement.sql(), String.class, statement.parameters()));
+            if (database == DatabaseDriver.POSTGRESQL) {
+                assertFalse(plan.contains("Seq Scan"), () -> "Sequential scan for: " + statement.sql() + "\n" + plan);
+            } else {
+                assertFalse(plan.contains("tableScan"), () -> "Table scan for: " + statement.sql() + "\n" + plan);
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)
+                        ? new RecordingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    // Records the SQL and bound values of prepared statements executed while record() runs, so the
+    // plans checked are those of the statements Hibernate and Spring Data actually generate
+    static class RecordingDataSource extends DelegatingDataSource {
+
+        record Statement(String sql, Object[] parameters) { }
+
+        private List<Statement> recorded;
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        synchronized List<Statement> record(Runnable work) {
+            recorded = new ArrayList<>();
+            try {
+                work.run();
+                return recorded;
+            } finally {
+                recorded = null;
+            }
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recording(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recording(super.getConnection(username, password));
+        }
+
+        private Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                        return recording((PreparedStatement) result, sql);
+                    }
+                    return result;
+                });
+        }
+
+        private PreparedStatement recording(PreparedStatement statement, String sql) {
+            SortedMap<Integer, Object> parameters = new TreeMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {PreparedStatement.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.put(index, name.equals("setNull") ? null : args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if ((name.equals("executeQuery") || name.equals("execute")) && (args == null || args.length == 0)
+                               && recorded != null) {
+                        recorded.add(new Statement(sql, parameters.values().toArray()));
+                    }
+                    return invoke(statement, method, args);
+                });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
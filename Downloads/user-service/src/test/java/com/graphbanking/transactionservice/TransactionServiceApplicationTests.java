@@ -1,23 +1,61 @@
 package com.graphbanking.transactionservice;
 
+import com.graphbanking.transactionservice.client.UserServiceClient;
+import com.graphbanking.transactionservice.dto.TransactionConnection;
+import com.graphbanking.transactionservice.dto.UserSummary;
+import com.graphbanking.transactionservice.dto.UserTransactionSummary;
 import com.graphbanking.transactionservice.model.Transaction;
 import com.graphbanking.transactionservice.model.TransactionStatus;
 import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.repository.IdempotencyKeyRepository;
 import com.graphbanking.transactionservice.repository.TransactionRepository;
+import com.graphbanking.transactionservice.service.SnowflakeTransactionReferenceGenerator;
+import com.graphbanking.transactionservice.service.TransactionReferenceGenerator;
 import com.graphbanking.transactionservice.service.TransactionService;
+import com.graphbanking.transactionservice.service.TransactionStatusConflictException;
+import com.graphbanking.transactionservice.service.TransactionTotalsService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 @ActiveProfiles("test")
 @Transactional
 class TransactionServiceApplicationTests {
@@ -28,6 +66,21 @@ class TransactionServiceApplicationTests {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionTotalsService totalsService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private UserServiceClient userServiceClient;
+
     @Test
     void contextLoads() {
         assertNotNull(transactionService);
@@ -199,6 +252,151 @@ class TransactionServiceApplicationTests {
         });
     }
 
+    @Test
+    void testDateRangeIncludesArchivedHistory() {
+        Transaction recent = transactionService.createTransaction(
+            1L, TransactionType.DEPOSIT, new BigDecimal("40.00"), "USD", "Recent deposit"
+        );
+        jdbcTemplate.update(
+            "INSERT INTO transactions_archive (id, transaction_reference, user_id, transaction_type, transaction_status, " +
+            "amount, currency, created_at, updated_at, processed_at) " +
+            "VALUES (-1, 'ARCHIVED-1', 1, 'DEPOSIT', 'COMPLETED', 15.00, 'USD', ?, ?, ?)",
+            LocalDateTime.of(2001, 3, 1, 9, 0), LocalDateTime.of(2001, 3, 1, 9, 0), LocalDateTime.of(2001, 3, 1, 9, 5));
+        
+        List<Transaction> history = transactionService.getTransactionsByDateRange(
+            1L, LocalDateTime.of(2001, 1, 1, 0, 0), LocalDateTime.now().plusDays(1));
+        assertEquals(Set.of("ARCHIVED-1", recent.getTransactionReference()),
+            history.stream().map(Transaction::getTransactionReference).collect(Collectors.toSet()));
+        Transaction archived = history.stream().filter(t -> t.getId() == -1L).findFirst().orElseThrow();
+        assertEquals(TransactionStatus.COMPLETED, archived.getTransactionStatus());
+        assertEquals(0, new BigDecimal("15.00").compareTo(archived.getAmount()));
+        
+        // Ranges inside the retention window never touch the archive
+        assertEquals(List.of(recent.getId()), transactionService.getTransactionsByDateRange(
+            1L, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)).stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void testArchivedTransactionsStayVisible() {
+        Transaction deposit = transactionService.createTransaction(
+            77L, TransactionType.DEPOSIT, new BigDecimal("25.00"), "USD", "Archived deposit", "archived-key"
+        );
+        transactionService.completeTransaction(deposit.getId());
+        transactionRepository.flush();
+        // What TransactionPartitionMaintenance does to a month past the retention window
+        jdbcTemplate.update(
+            "INSERT INTO transactions_archive (id, transaction_reference, from_account_id, to_account_id, user_id, " +
+            "transaction_type, transaction_status, amount, currency, description, failure_reason, created_at, " +
+            "updated_at, processed_at) SELECT id, transaction_reference, from_account_id, to_account_id, user_id, " +
+            "transaction_type, transaction_status, amount, currency, description, failure_reason, created_at, " +
+            "updated_at, processed_at FROM transactions WHERE id = ?", deposit.getId());
+        jdbcTemplate.update("DELETE FROM transactions WHERE id = ?", deposit.getId());
+        entityManager.clear();
+        
+        assertEquals(deposit.getTransactionReference(),
+            transactionService.getTransactionById(deposit.getId()).orElseThrow().getTransactionReference());
+        assertEquals(deposit.getId(),
+            transactionService.getTransactionByReference(deposit.getTransactionReference()).orElseThrow().getId());
+        assertEquals(deposit.getId(), transactionService.createTransaction(
+            77L, TransactionType.DEPOSIT, new BigDecimal("25.00"), "USD", "Archived deposit", "archived-key").getId());
+        
+        UserTransactionSummary summary = transactionService.getUserTransactionSummary(77L);
+        assertEquals(1, summary.getCompletedCount());
+        assertEquals(0, new BigDecimal("25.00").compareTo(summary.getTotalDeposits()));
+        assertEquals(0, totalsService.reconcile());
+        assertEquals(0, new BigDecimal("25.00").compareTo(
+            transactionService.getTotalAmountByUserAndType(77L, TransactionType.DEPOSIT)));
+    }
+
+    @Test
+    void testIdempotencyKeyReturnsOriginalTransaction() {
+        Transaction first = transactionService.createTransfer(
+            1L, 11L, 12L, new BigDecimal("250.00"), "USD", "Rent", "rent-2030-01");
+        Transaction retried = transactionService.createTransfer(
+            1L, 11L, 12L, new BigDecimal("250.00"), "USD", "Rent", "rent-2030-01");
+        
+        assertEquals(first.getId(), retried.getId());
+        assertEquals(first.getTransactionReference(), retried.getTransactionReference());
+        assertEquals(1, transactionService.getTransactionsByUserIdAndType(1L, TransactionType.TRANSFER).size());
+        
+        // The same key from another user, or a different key, is a new request
+        Transaction otherUser = transactionService.createTransfer(
+            2L, 11L, 12L, new BigDecimal("250.00"), "USD", "Rent", "rent-2030-01");
+        assertNotEquals(first.getId(), otherUser.getId());
+        
+        assertThrows(RuntimeException.class, () -> transactionService.createTransfer(
+            1L, 11L, 12L, new BigDecimal("999.00"), "USD", "Rent", "rent-2030-01"));
+    }
+
+    // A concurrent MERGE that saw no row can still lose on the primary key; that is a taken key, not an error
+    @Test
+    void testClaimThatLosesOnThePrimaryKeyIsNotAnError() throws Exception {
+        JdbcTemplate racing = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int update(String sql, Object... args) {
+                throw new DuplicateKeyException("Unique index or primary key violation");
+            }
+        };
+        
+        assertFalse(new IdempotencyKeyRepository(racing).claim(1L, "raced-key", "TXN-RACED"));
+    }
+
+    @Test
+    void testIllegalStatusTransitionIsRejected() {
+        Transaction transaction = transactionService.createTransaction(
+            1L, TransactionType.PAYMENT, new BigDecimal("20.00"), "USD", "Cancelled payment"
+        );
+        transactionService.cancelTransaction(transaction.getId());
+        
+        TransactionStatusConflictException conflict = assertThrows(TransactionStatusConflictException.class,
+            () -> transactionService.completeTransaction(transaction.getId()));
+        assertEquals(TransactionStatus.CANCELLED, conflict.getCurrentStatus());
+        assertEquals(TransactionStatus.COMPLETED, conflict.getRequestedStatus());
+        
+        // Asking for the status a transaction already has is not a conflict
+        assertEquals(TransactionStatus.CANCELLED, transactionService.cancelTransaction(transaction.getId()).getTransactionStatus());
+    }
+
+    @Test
+    void testFailedTransactionCanBeCancelled() {
+        Transaction transaction = transactionService.createTransaction(
+            1L, TransactionType.PAYMENT, new BigDecimal("15.00"), "USD", "Abandoned payment"
+        );
+        transactionService.failTransaction(transaction.getId(), "Card declined");
+        
+        assertEquals(TransactionStatus.CANCELLED, transactionService.cancelTransaction(transaction.getId()).getTransactionStatus());
+    }
+
+    @Test
+    void testRepeatedStatusUpdatesFailureReason() {
+        Transaction transaction = transactionService.createTransaction(
+            1L, TransactionType.PAYMENT, new BigDecimal("35.00"), "USD", "Declined payment"
+        );
+        transactionService.failTransaction(transaction.getId(), "Card declined");
+        
+        Transaction updated = transactionService.failTransaction(transaction.getId(), "Card reported stolen");
+        
+        assertEquals(TransactionStatus.FAILED, updated.getTransactionStatus());
+        assertEquals("Card reported stolen", updated.getFailureReason());
+        assertEquals("Card reported stolen",
+            transactionRepository.findById(transaction.getId()).get().getFailureReason());
+    }
+
+    @Test
+    void testConcurrentStatusChangeIsReportedAsConflict() {
+        Transaction transaction = transactionService.createTransaction(
+            1L, TransactionType.DEPOSIT, new BigDecimal("30.00"), "USD", "Raced deposit"
+        );
+        // Another writer cancels the row behind the copy this persistence context already holds
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(1, transactionRepository.compareAndSetStatus(
+            transaction.getId(), TransactionStatus.PENDING, TransactionStatus.CANCELLED, null, null, now));
+        
+        TransactionStatusConflictException conflict = assertThrows(TransactionStatusConflictException.class,
+            () -> transactionService.completeTransaction(transaction.getId()));
+        assertEquals(TransactionStatus.PENDING, conflict.getCurrentStatus());
+    }
+
     @Test
     void testDeleteTransaction() {
         Transaction transaction = transactionService.createTransaction(
@@ -289,4 +487,223 @@ class TransactionServiceApplicationTests {
         assertEquals(1, transactions.size());
         assertTrue(transactions.contains(transaction));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testGetTransactionsByUserIdPaginated() {
+        Transaction first = transactionService.createTransaction(
+            1L, TransactionType.DEPOSIT, new BigDecimal("10.00"), "USD", "First"
+        );
+        Transaction second = transactionService.createTransaction(
+            1L, TransactionType.DEPOSIT, new BigDecimal("20.00"), "USD", "Second"
+        );
+        Transaction third = transactionService.createTransaction(
+            1L, TransactionType.DEPOSIT, new BigDecimal("30.00"), "USD", "Third"
+        );
+        
+        TransactionConnection page1 = transactionService.getTransactionsByUserId(1L, 2, null);
+        
+        assertEquals(2, page1.getEdges().size());
+        assertTrue(page1.getPageInfo().isHasNextPage());
+        assertEquals(third.getId(), page1.getEdges().get(0).getNode().getId());
+        assertEquals(second.getId(), page1.getEdges().get(1).getNode().getId());
+        
+        TransactionConnection page2 = transactionService.getTransactionsByUserId(1L, 2, page1.getPageInfo().getEndCursor());
+        
+        assertEquals(1, page2.getEdges().size());
+        assertFalse(page2.getPageInfo().isHasNextPage());
+        assertEquals(first.getId(), page2.getEdges().get(0).getNode().getId());
+    }
+
+    @Test
+    void testInvalidPageSize() {
+        assertThrows(RuntimeException.class, () -> {
+            transactionService.getTransactionsByUserId(1L, 0, null);
+        });
+    }
+
+    @Test
+    void testGetTransactionsByAccountId() {
+        Transaction outgoing = transactionService.createTransfer(
+            1L, 10L, 20L, new BigDecimal("50.00"), "USD", "Outgoing"
+        );
+        Transaction incoming = transactionService.createTransfer(
+            1L, 30L, 10L, new BigDecimal("75.00"), "USD", "Incoming"
+        );
+        transactionService.createTransfer(1L, 20L, 30L, new BigDecimal("5.00"), "USD", "Unrelated");
+        
+        List<Transaction> transactions = transactionService.getTransactionsByAccountId(10L);
+        
+        assertEquals(2, transactions.size());
+        assertTrue(transactions.stream().anyMatch(t -> t.getId().equals(outgoing.getId())));
+        assertTrue(transactions.stream().anyMatch(t -> t.getId().equals(incoming.getId())));
+    }
+
+    @Test
+    void testGetUserTransactionSummary() {
+        Transaction deposit = transactionService.createTransaction(
+            1L, TransactionType.DEPOSIT, new BigDecimal("100.00"), "USD", "Deposit"
+        );
+        Transaction withdrawal = transactionService.createTransaction(
+            1L, TransactionType.WITHDRAWAL, new BigDecimal("40.00"), "USD", "Withdrawal"
+        );
+        Transaction failed = transactionService.createTransaction(
+            1L, TransactionType.DEPOSIT, new BigDecimal("10.00"), "USD", "Failed deposit"
+        );
+        transactionService.createTransaction(1L, TransactionType.TRANSFER, new BigDecimal("5.00"), "USD", "Pending");
+        transactionService.completeTransaction(deposit.getId());
+        transactionService.completeTransaction(withdrawal.getId());
+        transactionService.failTransaction(failed.getId(), "Declined");
+        
+        UserTransactionSummary summary = transactionService.getUserTransactionSummary(1L);
+        
+        assertEquals(2, summary.getCompletedCount());
+        assertEquals(1, summary.getPendingCount());
+        assertEquals(1, summary.getFailedCount());
+        assertEquals(0, new BigDecimal("100.00").compareTo(summary.getTotalDeposits()));
+        assertEquals(0, new BigDecimal("40.00").compareTo(summary.getTotalWithdrawals()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(summary.getTotalTransfers()));
+    }
+
+    @Test
+    void testAccountTotalsFollowStatusChanges() {
+        Transaction transfer = transactionService.createTransfer(
+            1L, 100L, 200L, new BigDecimal("60.00"), "USD", "Totals transfer"
+        );
+        assertEquals(0, BigDecimal.ZERO.compareTo(transactionService.getTotalDebitsByAccount(100L)));
+        
+        transactionService.completeTransaction(transfer.getId());
+        
+        assertEquals(0, new BigDecimal("60.00").compareTo(transactionService.getTotalDebitsByAccount(100L)));
+        assertEquals(0, new BigDecimal("60.00").compareTo(transactionService.getTotalCreditsByAccount(200L)));
+        assertEquals(0, new BigDecimal("60.00").compareTo(
+            transactionService.getTotalAmountByUserAndType(1L, TransactionType.TRANSFER)));
+        assertEquals(0, totalsService.reconcile());
+        
+        transactionService.failTransaction(transfer.getId(), "Reversed");
+        
+        assertEquals(0, BigDecimal.ZERO.compareTo(transactionService.getTotalDebitsByAccount(100L)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(transactionService.getTotalCreditsByAccount(200L)));
+        assertEquals(0, totalsService.reconcile());
+    }
+
+    @Test
+    void testReconcileRepairsOnlyDriftedTotals() {
+        Transaction transfer = transactionService.createTransfer(
+            1L, 300L, 400L, new BigDecimal("35.00"), "USD", "Drift transfer"
+        );
+        transactionService.completeTransaction(transfer.getId());
+        jdbcTemplate.update("UPDATE account_transaction_totals SET total_debits = 999 WHERE account_id = 300");
+        jdbcTemplate.update("INSERT INTO account_transaction_totals (account_id, total_debits, total_credits, updated_at) " +
+                            "VALUES (401, 5, 0, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("UPDATE user_transaction_totals SET total_amount = total_amount + 1 " +
+                            "WHERE user_id = 1 AND transaction_type = 'TRANSFER'");
+        
+        assertEquals(3, totalsService.reconcile());
+        
+        assertEquals(0, new BigDecimal("35.00").compareTo(transactionService.getTotalDebitsByAccount(300L)));
+        assertEquals(0, new BigDecimal("35.00").compareTo(transactionService.getTotalCreditsByAccount(400L)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(transactionService.getTotalDebitsByAccount(401L)));
+        assertEquals(0, new BigDecimal("35.00").compareTo(
+            transactionService.getTotalAmountByUserAndType(1L, TransactionType.TRANSFER)));
+        assertEquals(0, totalsService.reconcile());
+    }
+
+    @Test
+    void testReferencesAreUniqueAndOrdered() {
+        TransactionReferenceGenerator generator = new SnowflakeTransactionReferenceGenerator(1);
+        Set<String> references = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 100_000).parallel().forEach(i -> references.add(generator.nextReference()));
+        assertEquals(100_000, references.size());
+
+        String first = generator.nextReference();
+        String second = generator.nextReference();
+        assertTrue(first.startsWith("TXN-"));
+        assertTrue(first.compareTo(second) < 0);
+        assertNotEquals(first.substring(4), new SnowflakeTransactionReferenceGenerator(2).nextReference().substring(4));
+    }
+
+    @Test
+    void testNodeIdIsRequiredOutsideDevAndTest() {
+        assertThrows(IllegalStateException.class, () -> new SnowflakeTransactionReferenceGenerator(-1, new MockEnvironment()));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionReferenceGenerator(1024));
+        
+        MockEnvironment test = new MockEnvironment();
+        test.setActiveProfiles("test");
+        assertTrue(new SnowflakeTransactionReferenceGenerator(-1, test).nextReference().startsWith("TXN-"));
+        assertTrue(new SnowflakeTransactionReferenceGenerator(7, new MockEnvironment()).nextReference().startsWith("TXN-"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testTransactionUsersAreBatched() throws Exception {
+        for (long userId = 501; userId <= 503; userId++) {
+            for (int i = 0; i < 5; i++) {
+                transactionService.createTransaction(userId, TransactionType.DEPOSIT, new BigDecimal("10.00"), "USD", null);
+            }
+        }
+        when(userServiceClient.getUsersByIds(any())).thenAnswer(invocation -> {
+            Map<Long, UserSummary> users = new HashMap<>();
+            for (Long id : (Collection<Long>) invocation.getArgument(0)) {
+                UserSummary user = new UserSummary();
+                user.setId(id);
+                user.setName("User " + id);
+                users.put(id, user);
+            }
+            return users;
+        });
+
+        String query = "{\"query\": \"{ transactions(first: 15) { edges { node { userId user { name } } } } }\"}";
+        MvcResult pending = mockMvc.perform(post("/graphql").contentType(MediaType.APPLICATION_JSON).content(query))
+            .andReturn();
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(jsonPath("$.data.transactions.edges.length()").value(15))
+            .andExpect(jsonPath("$.data.transactions.edges[0].node.user.name").value("User 503"));
+
+        verify(userServiceClient, times(1)).getUsersByIds(any());
+    }
+
+    @Test
+    void testPersistedQueries() throws Exception {
+        transactionService.createTransaction(601L, TransactionType.DEPOSIT, new BigDecimal("10.00"), "USD", null);
+        String query = "query Summary { userTransactionSummary(userId: 601) { pendingCount } }";
+        String hash = HexFormat.of().formatHex(
+            MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8)));
+        String extensions = "\"extensions\": {\"persistedQuery\": {\"version\": 1, \"sha256Hash\": \"" + hash + "\"}}";
+
+        // Unknown hash without a query: the client is asked to send the query
+        graphql("{\"query\": \"PersistedQueryMarker\", " + extensions + "}")
+            .andExpect(jsonPath("$.errors[0].message").value("PersistedQueryNotFound"));
+
+        // Query plus hash registers it, after which the hash alone is enough
+        graphql("{\"query\": \"" + query + "\", " + extensions + "}")
+            .andExpect(jsonPath("$.data.userTransactionSummary.pendingCount").value(1));
+        graphql("{\"query\": \"PersistedQueryMarker\", " + extensions + "}")
+            .andExpect(jsonPath("$.data.userTransactionSummary.pendingCount").value(1));
+
+        // A hash that does not belong to the query is rejected
+        graphql("{\"query\": \"{ transactions(first: 1) { edges { node { id } } } }\", " + extensions.replace(hash, "deadbeef") + "}")
+            .andExpect(jsonPath("$.errors[0].message").exists());
+    }
+
+    @Test
+    void testQueryCostIsReportedAndLimited() throws Exception {
+        // 10 for the page + 5 rows x (edges 1 + node 1 + user 2)
+        graphql("{\"query\": \"{ transactions(first: 5) { edges { node { id user { id } } } } }\"}")
+            .andExpect(jsonPath("$.extensions.cost.requested").value(30))
+            .andExpect(header().string("X-GraphQL-Cost", "30"));
+
+        StringBuilder query = new StringBuilder("{");
+        for (int i = 0; i < 20; i++) {
+            query.append(" page").append(i).append(": transactions(first: 100) { edges { node { id user { id } } } }");
+        }
+        graphql("{\"query\": \"" + query.append(" }") + "\"}")
+            .andExpect(jsonPath("$.errors[0].message").value("Query cost 8200 exceeds the maximum of 5000"))
+            .andExpect(jsonPath("$.data").doesNotExist());
+    }
+
+    private ResultActions graphql(String body) throws Exception {
+        MvcResult pending = mockMvc.perform(post("/graphql").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(pending));
+    }
+}
\ No newline at end of file
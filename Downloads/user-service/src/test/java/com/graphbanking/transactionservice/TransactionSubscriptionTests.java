@@ -0,0 +1,144 @@
+package com.graphbanking.transactionservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphbanking.transactionservice.event.OutboxEvent;
+import com.graphbanking.transactionservice.event.TransactionStatusBroadcaster;
+import com.graphbanking.transactionservice.event.TransactionStatusChangedEvent;
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.repository.TransactionOutboxRepository;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import com.graphbanking.transactionservice.resolver.TransactionResolver;
+import com.graphbanking.transactionservice.service.OutboxRelay;
+import com.graphbanking.transactionservice.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Subscribers only hear about committed changes once they are relayed through the outbox, so these
+// tests commit for real, run the relay and the broadcaster by hand and remove their rows afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionSubscriptionTests {
+
+    private static final long USER_ID = 9020L;
+    private static final long OTHER_USER_ID = 9021L;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionResolver transactionResolver;
+
+    @Autowired
+    private TransactionStatusBroadcaster broadcaster;
+
+    @Autowired
+    private TransactionOutboxRepository outboxRepository;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll(transactionRepository.findByUserId(USER_ID));
+        transactionRepository.deleteAll(transactionRepository.findByUserId(OTHER_USER_ID));
+        // Completed rows fed the running totals; leave nothing behind for tests that reconcile them
+        jdbcTemplate.update("DELETE FROM user_transaction_totals WHERE user_id IN (?, ?)", USER_ID, OTHER_USER_ID);
+    }
+
+    @Test
+    void testSubscriberReceivesCommittedStatusChange() {
+        Transaction transaction = transactionService.createTransaction(
+            USER_ID, TransactionType.DEPOSIT, new BigDecimal("40.00"), "USD", null);
+        Transaction other = transactionService.createTransaction(
+            OTHER_USER_ID, TransactionType.DEPOSIT, new BigDecimal("15.00"), "USD", null);
+
+        Flux<TransactionStatusChangedEvent> updates = transactionResolver.transactionStatusChanged(USER_ID, null);
+
+        StepVerifier.create(updates)
+            .then(() -> {
+                transactionService.completeTransaction(other.getId());
+                transactionService.completeTransaction(transaction.getId());
+                relay.relay();
+                broadcaster.follow();
+            })
+            .assertNext(event -> {
+                assertEquals(transaction.getId(), event.getTransactionId());
+                assertEquals(TransactionStatus.PENDING, event.getPreviousStatus());
+                assertEquals(TransactionStatus.COMPLETED, event.getNewStatus());
+                assertEquals(0, new BigDecimal("40.00").compareTo(event.getAmount()));
+            })
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testSubscriptionCanBeNarrowedToOneTransaction() {
+        Transaction first = transactionService.createTransaction(
+            USER_ID, TransactionType.PAYMENT, new BigDecimal("5.00"), "USD", null);
+        Transaction second = transactionService.createTransaction(
+            USER_ID, TransactionType.PAYMENT, new BigDecimal("6.00"), "USD", null);
+
+        StepVerifier.create(transactionResolver.transactionStatusChanged(USER_ID, second.getId()))
+            .then(() -> {
+                transactionService.failTransaction(first.getId(), "Card declined");
+                transactionService.failTransaction(second.getId(), "Card declined");
+                relay.relay();
+                broadcaster.follow();
+            })
+            .assertNext(event -> {
+                assertEquals(second.getId(), event.getTransactionId());
+                assertEquals(TransactionStatus.FAILED, event.getNewStatus());
+            })
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    // Another instance changed the status: this instance only learns of it through the outbox stream
+    @Test
+    void testChangeOnAnotherInstanceIsBroadcast() throws Exception {
+        Transaction transaction = transactionService.createTransaction(
+            USER_ID, TransactionType.DEPOSIT, new BigDecimal("25.00"), "USD", null);
+        String payload = objectMapper.writeValueAsString(new TransactionStatusChangedEvent(
+            transaction.getId(), transaction.getTransactionReference(), USER_ID, null, null, TransactionType.DEPOSIT,
+            new BigDecimal("25.00"), "USD", TransactionStatus.PENDING, TransactionStatus.COMPLETED, LocalDateTime.now()));
+
+        StepVerifier.create(transactionResolver.transactionStatusChanged(USER_ID, transaction.getId()))
+            .then(() -> {
+                jdbcTemplate.update("UPDATE transactions SET transaction_status = 'COMPLETED' WHERE id = ?", transaction.getId());
+                outboxRepository.insert(transaction.getId(), OutboxEvent.TRANSACTION_STATUS_CHANGED, payload);
+                relay.relay();
+                broadcaster.follow();
+            })
+            .assertNext(event -> {
+                assertEquals(transaction.getTransactionReference(), event.getTransactionReference());
+                assertEquals(TransactionStatus.PENDING, event.getPreviousStatus());
+                assertEquals(TransactionStatus.COMPLETED, event.getNewStatus());
+                assertEquals(0, new BigDecimal("25.00").compareTo(event.getAmount()));
+            })
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+    }
+}
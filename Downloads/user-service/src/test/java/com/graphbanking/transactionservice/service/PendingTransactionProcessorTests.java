@@ -0,0 +1,137 @@
+package com.graphbanking.transactionservice.service;
+
+import com.graphbanking.transactionservice.model.Transaction;
+import com.graphbanking.transactionservice.model.TransactionStatus;
+import com.graphbanking.transactionservice.model.TransactionType;
+import com.graphbanking.transactionservice.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Claims and settlements run in their own transactions on worker threads, so these tests commit
+// and remove their rows afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+class PendingTransactionProcessorTests {
+
+    private static final long USER_ID = 9023L;
+    private static final int ROWS = 40;
+
+    @Autowired
+    private PendingTransactionProcessor processor;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        for (Transaction transaction : transactionRepository.findByUserId(USER_ID)) {
+            jdbcTemplate.update("DELETE FROM transaction_outbox WHERE aggregate_id = ?", transaction.getId());
+            transactionRepository.delete(transaction);
+        }
+        // Completed rows fed the running totals; leave nothing behind for tests that reconcile them
+        jdbcTemplate.update("DELETE FROM user_transaction_totals WHERE user_id = ?", USER_ID);
+    }
+
+    @Test
+    void testConcurrentDrainsSettleEachTransactionOnce() {
+        List<Long> ids = createPending();
+
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(processor::drain);
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(processor::drain);
+        first.join();
+        second.join();
+
+        for (Long id : ids) {
+            assertEquals(TransactionStatus.COMPLETED, transactionRepository.findById(id).orElseThrow().getTransactionStatus());
+            assertEquals(1, countStatusEvents(id, TransactionStatus.COMPLETED));
+        }
+    }
+
+    @Test
+    void testCancelRacingClaimedBatchWinsOrLosesCleanly() {
+        List<Long> ids = createPending();
+        List<Long> claimed = processor.claimBatch();
+        assertTrue(claimed.containsAll(ids));
+
+        AtomicInteger cancelled = new AtomicInteger();
+        CompletableFuture<Void> cancels = CompletableFuture.runAsync(() -> {
+            for (Long id : ids) {
+                try {
+                    transactionService.cancelTransaction(id);
+                    cancelled.incrementAndGet();
+                } catch (TransactionStatusConflictException e) {
+                    // settled first
+                }
+            }
+        });
+        CompletableFuture<Integer> settle = CompletableFuture.supplyAsync(() -> processor.settleBatch(claimed));
+        cancels.join();
+        settle.join();
+
+        int completed = 0;
+        for (Long id : ids) {
+            TransactionStatus status = transactionRepository.findById(id).orElseThrow().getTransactionStatus();
+            if (status == TransactionStatus.COMPLETED) {
+                completed++;
+                assertEquals(0, countStatusEvents(id, TransactionStatus.CANCELLED));
+            } else {
+                assertEquals(TransactionStatus.CANCELLED, status);
+                assertEquals(0, countStatusEvents(id, TransactionStatus.COMPLETED));
+            }
+        }
+        assertEquals(ROWS, completed + cancelled.get());
+    }
+
+    @Test
+    void testOnlyExpiredClaimsAreReleased() {
+        List<Long> ids = createPending();
+        processor.claimBatch();
+        Long stale = ids.get(0);
+        Long manual = ids.get(1);
+        jdbcTemplate.update("UPDATE transactions SET claimed_at = ? WHERE id = ?", LocalDateTime.now().minusDays(1), stale);
+        jdbcTemplate.update("UPDATE transactions SET claimed_at = NULL, updated_at = ? WHERE id = ?", LocalDateTime.now().minusDays(1), manual);
+
+        assertEquals(1, processor.releaseStaleClaims());
+
+        Transaction released = transactionRepository.findById(stale).orElseThrow();
+        assertEquals(TransactionStatus.PENDING, released.getTransactionStatus());
+        assertNull(released.getClaimedAt());
+        assertEquals(1, countStatusEvents(stale, TransactionStatus.PENDING));
+        assertEquals(TransactionStatus.PROCESSING, transactionRepository.findById(manual).orElseThrow().getTransactionStatus());
+    }
+
+    private List<Long> createPending() {
+        List<Long> ids = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            ids.add(transactionService.createTransaction(
+                USER_ID, TransactionType.DEPOSIT, new BigDecimal("10.00"), "USD", "Batch " + i).getId());
+        }
+        return ids;
+    }
+
+    private int countStatusEvents(Long id, TransactionStatus newStatus) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM transaction_outbox WHERE aggregate_id = ? AND event_type = 'TRANSACTION_STATUS_CHANGED' " +
+            "AND payload LIKE ?",
+            Integer.class, id, "%\"newStatus\":\"" + newStatus + "\"%");
+    }
+}
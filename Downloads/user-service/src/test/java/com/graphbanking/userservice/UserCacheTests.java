@@ -0,0 +1,134 @@
+package com.graphbanking.userservice;
+
+import com.graphbanking.userservice.cache.UserCache;
+import com.graphbanking.userservice.model.User;
+import com.graphbanking.userservice.repository.UserRepository;
+import com.graphbanking.userservice.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// Reads inside a read-write transaction are never cached, so these tests run without one
+// and remove their users afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+class UserCacheTests {
+
+    @Autowired
+    private UserService userService;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.findByEmail("cached@example.com").ifPresent(userRepository::delete);
+        userRepository.findByEmail("renamed@example.com").ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void testRepeatedLookupsAreServedFromCache() {
+        User created = userService.createUser("Cached User", "cached@example.com", "password123");
+        double hitsBefore = hits();
+
+        assertTrue(userService.getUserById(created.getId()).isPresent());
+        assertEquals(hitsBefore, hits());
+
+        assertEquals("Cached User", userService.getUserById(created.getId()).get().getName());
+        assertEquals(created.getId(), userService.getUserByEmail("cached@example.com").get().getId());
+        assertEquals(hitsBefore + 2, hits());
+    }
+
+    @Test
+    void testUpdateAndDeleteInvalidateCache() {
+        User created = userService.createUser("Cached User", "cached@example.com", "password123");
+        userService.getUserById(created.getId());
+
+        userService.updateUser(created.getId(), "Renamed User", "renamed@example.com");
+
+        assertFalse(userService.getUserByEmail("cached@example.com").isPresent());
+        assertEquals("Renamed User", userService.getUserById(created.getId()).get().getName());
+        assertEquals("Renamed User", userService.getUserByEmail("renamed@example.com").get().getName());
+
+        userService.deleteUser(created.getId());
+
+        assertFalse(userService.getUserById(created.getId()).isPresent());
+        assertFalse(userService.getUserByEmail("renamed@example.com").isPresent());
+    }
+
+    @Test
+    void testLoadRacingAnUpdateIsNotCached() {
+        User created = userService.createUser("Cached User", "cached@example.com", "password123");
+
+        // The old row is read, then an update commits and evicts before the reader caches it
+        Optional<User> stale = userCache.getById(created.getId(), () -> {
+            Optional<User> old = userRepository.findById(created.getId());
+            userService.updateUser(created.getId(), "Renamed User", null);
+            return old;
+        });
+        assertEquals("Cached User", stale.get().getName());
+        assertEquals("Renamed User", userService.getUserById(created.getId()).get().getName());
+
+        List<User> staleBatch = userCache.getAllById(List.of(created.getId()), ids -> {
+            List<User> old = userRepository.findAllById(ids);
+            userService.updateUser(created.getId(), "Cached User", null);
+            return old;
+        });
+        assertEquals("Renamed User", staleBatch.get(0).getName());
+        assertEquals("Cached User", userService.getUsersByIds(List.of(created.getId())).get(0).getName());
+    }
+
+    @Test
+    void testUserQueryIsServedFromCache() {
+        User created = userService.createUser("Cached User", "cached@example.com", "password123");
+
+        assertEquals("Cached User", queryUserName(created.getId()));
+        clearInvocations(userRepository);
+
+        assertEquals("Cached User", queryUserName(created.getId()));
+        assertEquals(List.of(created.getId()), userService.getUsersByIds(List.of(created.getId(), created.getId()))
+            .stream().map(User::getId).toList());
+        verify(userRepository, never()).findAllById(any());
+        verify(userRepository, never()).findById(any());
+    }
+
+    private String queryUserName(Long id) {
+        ExecutionGraphQlResponse response = graphQlService.execute(new DefaultExecutionGraphQlRequest(
+            "query($id: ID!) { user(id: $id) { name } }", null, Map.of("id", id), null,
+            UUID.randomUUID().toString(), null)).block();
+        assertNotNull(response);
+        assertTrue(response.isValid());
+        return response.field("user.name").getValue();
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit").counter().count();
+    }
+}
@@ -0,0 +1,53 @@
+package com.graphbanking.userservice;
+
+import com.graphbanking.common.datasource.ReadYourWritesTracker;
+import com.graphbanking.userservice.model.User;
+import com.graphbanking.userservice.repository.UserRepository;
+import com.graphbanking.userservice.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Registration commits on the application executor, away from the request thread; the client must
+// still be told it wrote. A second in-memory H2 database stands in for the replica.
+@SpringBootTest(properties = {
+    "graphbanking.datasource.replica.url=jdbc:h2:mem:userreplica;DB_CLOSE_DELAY=-1",
+    "graphbanking.datasource.replica.lag-query=SELECT 0",
+    "graphbanking.datasource.replica.lag-check-interval-ms=60000"
+})
+@ActiveProfiles("test")
+class UserReadYourWritesTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void cleanUp() {
+        RequestContextHolder.resetRequestAttributes();
+        userRepository.findByEmail("async@example.com").ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void testAsyncRegistrationMarksTheClientAsHavingWritten() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+
+        User created = userService.createUserAsync("Async User", "async@example.com", "password123").join();
+
+        assertNotNull(created.getId());
+        String marker = response.getHeader(ReadYourWritesTracker.HEADER);
+        assertNotNull(marker);
+        assertEquals(marker, response.getCookie(ReadYourWritesTracker.COOKIE).getValue());
+    }
+}
@@ -6,9 +6,12 @@ import com.graphbanking.userservice.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -96,4 +99,31 @@ class UserServiceApplicationTests {
             userService.createUser("User Two", "duplicate@example.com", "password456");
         });
     }
-}
+
+    @Test
+    void testGetUsersByIds() {
+        User first = userService.createUser("Batch One", "batch1@example.com", "password123");
+        User second = userService.createUser("Batch Two", "batch2@example.com", "password123");
+
+        List<User> users = userService.getUsersByIds(List.of(first.getId(), second.getId(), -1L));
+
+        assertEquals(2, users.size());
+        assertTrue(users.stream().anyMatch(u -> u.getEmail().equals("batch1@example.com")));
+        assertTrue(users.stream().anyMatch(u -> u.getEmail().equals("batch2@example.com")));
+    }
+
+    @Test
+    void testAuthenticateRehashesLegacyPasswords() {
+        // Stored before encoder ids were prefixed, with a lower cost than configured
+        User legacy = new User("Legacy User", "legacy@example.com", new BCryptPasswordEncoder(4).encode("password123"));
+        userRepository.save(legacy);
+
+        assertFalse(userService.authenticate("legacy@example.com", "wrong-password").isPresent());
+        assertTrue(userRepository.findByEmail("legacy@example.com").get().getPassword().startsWith("$2a$04$"));
+
+        User authenticated = userService.authenticate("legacy@example.com", "password123").orElseThrow();
+        assertTrue(authenticated.getPassword().startsWith("{bcrypt}"));
+        assertTrue(userService.authenticate("legacy@example.com", "password123").isPresent());
+        assertFalse(userService.authenticate("nobody@example.com", "password123").isPresent());
+    }
+}
\ No newline at end of file